@@ -0,0 +1,91 @@
+import benchmarks.Workload;
+
+// The engine side of the benchmarks, in the engine's own package; see benchmarks.Workload
+public class EngineWorkload implements Workload {
+    private static final int HASH_SIZE_MB = 16;
+
+    private final ChessBoard board = new ChessBoard();
+    private final ChessAI ai = new ChessAI(HASH_SIZE_MB);
+    private final int[] moves = new int[ChessBoard.MAX_MOVES];
+    private final int moveCount;
+    // The same moves at the GUI boundary
+    private final Move[] boundaryMoves;
+
+    public EngineWorkload(String fen) {
+        board.setFen(fen);
+        moveCount = board.generateMoves(moves);
+        boundaryMoves = board.getAllValidMoves().toArray(new Move[0]);
+    }
+
+    @Override
+    public Object getAllValidMoves() {
+        return board.getAllValidMoves();
+    }
+
+    @Override
+    public int generateMoves() {
+        return board.generateMoves(moves);
+    }
+
+    @Override
+    public long makeUnmakeAll() {
+        long keys = 0;
+        for (int i = 0; i < moveCount; i++) {
+            board.makeMove(moves[i]);
+            keys += board.getHashKey();
+            board.unmakeMove();
+        }
+        return keys;
+    }
+
+    @Override
+    public long copyMakeUndoAll() {
+        long keys = 0;
+        for (Move move : boundaryMoves) {
+            ChessBoard copy = board.copy();
+            copy.makeMove(move);
+            keys += copy.getHashKey();
+            copy.undoLastMove();
+        }
+        return keys;
+    }
+
+    @Override
+    public long evaluateBoardAll() {
+        long total = 0;
+        for (int i = 0; i < moveCount; i++) {
+            board.makeMove(moves[i]);
+            total += ai.evaluateBoard(board);
+            board.unmakeMove();
+        }
+        return total;
+    }
+
+    @Override
+    public long evaluatePositionAll() {
+        long total = 0;
+        for (int i = 0; i < moveCount; i++) {
+            board.makeMove(moves[i]);
+            total += ai.evaluatePosition(board);
+            board.unmakeMove();
+        }
+        return total;
+    }
+
+    @Override
+    public void setParallelism(String mode, int threads) {
+        ai.setParallelMode(ChessAI.ParallelMode.valueOf(mode));
+        ai.setThreads(threads);
+    }
+
+    @Override
+    public void newGame() {
+        ai.newGame();
+    }
+
+    @Override
+    public Object getBestMove(int depth) {
+        ai.setSearchLimits(SearchLimits.depth(depth));
+        return ai.getBestMove(board);
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Each operation evaluates every position one legal move away from the corpus position
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+    @Param({Positions.START, Positions.KIWIPETE, Positions.PROMOTIONS, Positions.MIDDLEGAME, Positions.ENDGAME})
+    public String fen;
+
+    private Workload workload;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.forPosition(fen);
+    }
+
+    // Mostly evaluation cache hits once warmed up, as in the search
+    @Benchmark
+    public long evaluateBoard() {
+        return workload.evaluateBoardAll();
+    }
+
+    @Benchmark
+    public long evaluatePosition() {
+        return workload.evaluatePositionAll();
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+    @Param({Positions.START, Positions.KIWIPETE, Positions.PROMOTIONS, Positions.MIDDLEGAME, Positions.ENDGAME})
+    public String fen;
+
+    private Workload workload;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.forPosition(fen);
+    }
+
+    @Benchmark
+    public Object getAllValidMoves() {
+        return workload.getAllValidMoves();
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        return workload.generateMoves();
+    }
+
+    @Benchmark
+    public long makeUnmake() {
+        return workload.makeUnmakeAll();
+    }
+
+    @Benchmark
+    public long copyMakeUndo() {
+        return workload.copyMakeUndoAll();
+    }
+}
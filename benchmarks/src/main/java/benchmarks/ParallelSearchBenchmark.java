@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Lazy SMP against root splitting: the same fixed-depth searches as SearchBenchmark on several threads
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+    @Param({Positions.KIWIPETE, Positions.MIDDLEGAME})
+    public String fen;
+
+    @Param({"6"})
+    public int depth;
+
+    @Param({"LAZY_SMP", "ROOT_SPLIT"})
+    public String mode;
+
+    @Param({"4"})
+    public int threads;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = Workload.forPosition(fen);
+        workload.setParallelism(mode, threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTables() {
+        workload.newGame();
+    }
+
+    // Shuts down the engine's thread pools
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workload.setParallelism(mode, 1);
+    }
+
+    @Benchmark
+    public Object getBestMove() {
+        return workload.getBestMove(depth);
+    }
+}
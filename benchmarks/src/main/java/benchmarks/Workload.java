@@ -0,0 +1,41 @@
+package benchmarks;
+
+// The engine lives in the unnamed package, which a named package cannot import, and JMH rejects benchmark
+// classes in the unnamed package. The benchmarks therefore drive the engine through this interface,
+// implemented by EngineWorkload in the unnamed package; the JIT inlines the single implementation.
+public interface Workload {
+    static Workload forPosition(String fen) {
+        try {
+            return (Workload) Class.forName("EngineWorkload").getConstructor(String.class).newInstance(fen);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("EngineWorkload is missing from the benchmark class path", e);
+        }
+    }
+
+    // ChessBoard.getAllValidMoves(), the List<Move> boundary the GUI uses
+    Object getAllValidMoves();
+
+    // ChessBoard.generateMoves(int[]), the allocation-free generator the search uses
+    int generateMoves();
+
+    // makeMove(int) and unmakeMove() in place for every legal move
+    long makeUnmakeAll();
+
+    // copy(), makeMove(Move) and undoLastMove() for every legal move
+    long copyMakeUndoAll();
+
+    // ChessAI.evaluateBoard(), including the evaluation cache, after every legal move
+    long evaluateBoardAll();
+
+    // The full evaluation behind the cache, after every legal move
+    long evaluatePositionAll();
+
+    // ChessAI.setParallelMode() by ChessAI.ParallelMode name, then setThreads()
+    void setParallelism(String mode, int threads);
+
+    // Clears the transposition table and caches so every search starts cold
+    void newGame();
+
+    // ChessAI.getBestMove() at a fixed depth
+    Object getBestMove(int depth);
+}
@@ -0,0 +1,216 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Headless analysis of a FEN/EPD file on all cores. One reader streams positions into a bounded queue,
+// so a huge file never sits in memory and the reader waits whenever the workers fall behind. Each worker
+// thread owns a ChessAI and a board, and results are written as tab-separated lines as soon as they finish:
+//   line, fen, best move, score (centipawns for the side to move, or mate N in moves), depth, nodes, milliseconds
+// A position the engine fails on is reported and skipped; only a failure to write the results stops the run.
+//
+// java BatchAnalysis <input> <output> [--threads n] [--depth n] [--movetime ms] [--nodes n] [--hash mb]
+public class BatchAnalysis {
+    private static final int DEFAULT_HASH_SIZE_MB = 16;
+    private static final int DEFAULT_DEPTH = 8;
+    // Queued positions per worker; enough to keep workers busy while the reader is parsing
+    private static final int QUEUE_PER_THREAD = 4;
+    private static final long PROGRESS_INTERVAL = 1000;
+    // How often a reader waiting for queue space checks whether a worker has failed
+    private static final long FAILURE_CHECK_MS = 100;
+    // Tells a worker the input is exhausted
+    private static final Job END = new Job(0, null);
+
+    private final Path input;
+    private final Path output;
+    private final int threads;
+    private final int hashSizeMb;
+    private final SearchLimits limits;
+    private final BlockingQueue<Job> queue;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalNodes = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    // The first exception that killed a worker; the run stops feeding the queue and rethrows it
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private BufferedWriter writer;
+
+    private static final class Job {
+        final long lineNumber;
+        final String fen;
+
+        Job(long lineNumber, String fen) {
+            this.lineNumber = lineNumber;
+            this.fen = fen;
+        }
+    }
+
+    public BatchAnalysis(Path input, Path output, int threads, int hashSizeMb, SearchLimits limits) {
+        this.input = input;
+        this.output = output;
+        this.threads = threads;
+        this.hashSizeMb = hashSizeMb;
+        this.limits = limits;
+        this.queue = new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: java BatchAnalysis <input> <output> [--threads n] [--depth n] [--movetime ms] [--nodes n] [--hash mb]");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashSizeMb = DEFAULT_HASH_SIZE_MB;
+        int depth = 0;
+        long moveTime = 0;
+        long nodes = 0;
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            switch (args[i]) {
+                case "--threads": threads = Math.max(1, Integer.parseInt(args[i + 1])); break;
+                case "--depth": depth = Integer.parseInt(args[i + 1]); break;
+                case "--movetime": moveTime = Long.parseLong(args[i + 1]); break;
+                case "--nodes": nodes = Long.parseLong(args[i + 1]); break;
+                case "--hash": hashSizeMb = Math.max(1, Integer.parseInt(args[i + 1])); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (depth == 0 && moveTime == 0 && nodes == 0) {
+            depth = DEFAULT_DEPTH;
+        }
+        new BatchAnalysis(Paths.get(args[0]), Paths.get(args[1]), threads, hashSizeMb,
+                new SearchLimits(depth, moveTime, nodes)).run();
+    }
+
+    public void run() throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        Thread[] workers = new Thread[threads];
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer = out;
+            writer.write("line\tfen\tbestmove\tscore\tdepth\tnodes\tmillis");
+            writer.newLine();
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Thread(this::work, "batch-analysis-" + (i + 1));
+                workers[i].start();
+            }
+            try {
+                readPositions();
+            } finally {
+                for (int i = 0; i < threads; i++) {
+                    if (!enqueue(END)) {
+                        break;
+                    }
+                }
+                if (failure.get() != null) {
+                    // Workers still waiting for a job would never get one
+                    for (Thread worker : workers) {
+                        worker.interrupt();
+                    }
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            }
+            if (failure.get() != null) {
+                throw new IllegalStateException("Analysis failed", failure.get());
+            }
+        }
+
+        double hours = Math.max(System.currentTimeMillis() - startTime, 1) / 3_600_000.0;
+        System.err.println(String.format(Locale.ROOT, "%d positions, %d skipped, %d nodes, %.0f positions/hour on %d threads",
+                completed.get(), skipped.get(), totalNodes.get(), completed.get() / hours, threads));
+    }
+
+    // Parsing on the reader thread rejects bad lines early; workers get the text to parse into their own board
+    private void readPositions() throws IOException, InterruptedException {
+        ChessBoard board = new ChessBoard();
+        try (PositionFileReader reader = new PositionFileReader(input)) {
+            while (true) {
+                try {
+                    if (!reader.next(board)) {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipped " + e.getMessage());
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                if (!enqueue(new Job(reader.getLineNumber(), reader.getLine().toString()))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Waits for room in the bounded queue, giving up once a worker has failed so a run whose workers are
+    // gone cannot block forever. Returns false if the job was not queued.
+    private boolean enqueue(Job job) throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(job, FAILURE_CHECK_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void work() {
+        ChessAI ai = new ChessAI(hashSizeMb);
+        ChessBoard board = new ChessBoard();
+        CancellationToken token = new CancellationToken();
+        StringBuilder result = new StringBuilder(128);
+        try {
+            for (Job job = queue.take(); job != END; job = queue.take()) {
+                SearchResult analysis;
+                try {
+                    board.setFen(job.fen);
+                    analysis = ai.search(board, limits, token);
+                } catch (RuntimeException e) {
+                    // One bad position must not end a long run; it is reported like a line that does not parse
+                    System.err.println("Skipped Line " + job.lineNumber + ": " + e);
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                int mateMoves = analysis.getMateMoves();
+                result.setLength(0);
+                result.append(job.lineNumber).append('\t').append(job.fen).append('\t')
+                      .append(analysis.getBestMove() == null ? "0000" : analysis.getBestMove().toString()).append('\t');
+                if (mateMoves != 0) {
+                    result.append("mate ").append(mateMoves);
+                } else {
+                    result.append(analysis.getScore());
+                }
+                result.append('\t').append(analysis.getDepth()).append('\t')
+                      .append(analysis.getNodes()).append('\t').append(analysis.getTimeMillis());
+                write(result);
+                totalNodes.addAndGet(analysis.getNodes());
+                long done = completed.incrementAndGet();
+                if (done % PROGRESS_INTERVAL == 0) {
+                    System.err.println(done + " positions analyzed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private synchronized void write(CharSequence line) {
+        try {
+            writer.append(line);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    // Ray directions: north, north-east, east, north-west (increasing squares), then their opposites
+    private static final int[] ROW_STEPS = {1, 1, 0, 1, -1, -1, 0, -1};
+    private static final int[] COL_STEPS = {0, 1, 1, -1, 0, -1, -1, 1};
+    private static final int NORTH = 0, NORTH_EAST = 1, EAST = 2, NORTH_WEST = 3;
+    private static final int SOUTH = 4, SOUTH_WEST = 5, WEST = 6, SOUTH_EAST = 7;
+
+    public static final long[] FILES = new long[8];
+    public static final long[] ADJACENT_FILES = new long[8];
+    // Squares in front of a pawn of the given color on its own and adjacent files; no enemy pawn there means it is passed
+    public static final long[][] PASSED_PAWN_MASKS = new long[2][64];
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    // Squares attacked by a pawn of the given color standing on the square
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[][] RAYS = new long[8][64];
+    // Squares strictly between two aligned squares, and the full line through them
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            FILES[col] = FILE_A << col;
+        }
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? FILES[col - 1] : 0L) | (col < 7 ? FILES[col + 1] : 0L);
+        }
+        for (int square = 0; square < 64; square++) {
+            int row = square / 8;
+            long span = FILES[square % 8] | ADJACENT_FILES[square % 8];
+            long ranksAbove = row == 7 ? 0L : -1L << (8 * (row + 1));
+            long ranksBelow = (1L << (8 * row)) - 1;
+            PASSED_PAWN_MASKS[ChessBoard.Player.WHITE.ordinal()][square] = span & ranksAbove;
+            PASSED_PAWN_MASKS[ChessBoard.Player.BLACK.ordinal()][square] = span & ranksBelow;
+        }
+
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int square = 0; square < 64; square++) {
+            int row = square / 8;
+            int col = square % 8;
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[square] |= bit(row + step[0], col + step[1]);
+            }
+            for (int dir = 0; dir < 8; dir++) {
+                KING_ATTACKS[square] |= bit(row + ROW_STEPS[dir], col + COL_STEPS[dir]);
+                for (int r = row + ROW_STEPS[dir], c = col + COL_STEPS[dir]; onBoard(r, c); r += ROW_STEPS[dir], c += COL_STEPS[dir]) {
+                    RAYS[dir][square] |= 1L << (r * 8 + c);
+                }
+            }
+            PAWN_ATTACKS[ChessBoard.Player.WHITE.ordinal()][square] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+            PAWN_ATTACKS[ChessBoard.Player.BLACK.ordinal()][square] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = RAYS[dir][from];
+                long line = ray | RAYS[(dir + 4) % 8][from] | (1L << from);
+                while (ray != 0) {
+                    int to = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    BETWEEN[from][to] = RAYS[dir][from] & ~RAYS[dir][to] & ~(1L << to);
+                    LINE[from][to] = line;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+
+    private static long bit(int row, int col) {
+        return onBoard(row, col) ? 1L << (row * 8 + col) : 0L;
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied) | positiveRay(EAST, square, occupied)
+             | negativeRay(SOUTH, square, occupied) | negativeRay(WEST, square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied) | positiveRay(NORTH_WEST, square, occupied)
+             | negativeRay(SOUTH_WEST, square, occupied) | negativeRay(SOUTH_EAST, square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static long positiveRay(int dir, int square, long occupied) {
+        long attacks = RAYS[dir][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            attacks ^= RAYS[dir][Long.numberOfTrailingZeros(blockers)];
+        }
+        return attacks;
+    }
+
+    private static long negativeRay(int dir, int square, long occupied) {
+        long attacks = RAYS[dir][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            attacks ^= RAYS[dir][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return attacks;
+    }
+
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+}
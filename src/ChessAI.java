@@ -1,111 +1,227 @@
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class ChessAI {
-    private static final int MAX_DEPTH = 4;
+    public static final int DEFAULT_HASH_SIZE_MB = 64;
+    private static final long DEFAULT_MOVE_TIME_MS = 3000;
+    private static final int PAWN_HASH_BITS = 16;
+    // The evaluation cache gets this fraction of the hash budget, so it scales with Hash, --hash and hash= too
+    private static final int EVALUATION_CACHE_DIVISOR = 4;
+    private static final int DOUBLED_PAWN_PENALTY = 15;
+    private static final int ISOLATED_PAWN_PENALTY = 15;
+    // Passed pawn bonus by rank counted from the pawn's own side
+    private static final int[] PASSED_PAWN_BONUS = {0, 5, 10, 20, 35, 60, 100, 0};
+    // Per step of the lone king from the center and per step the kings are closer, against a bare king
+    private static final int MOP_UP_EDGE_BONUS = 10;
+    private static final int MOP_UP_PROXIMITY_BONUS = 4;
     private Random random = new Random();
+    private final TranspositionTable transpositionTable;
+    private final PawnHashTable pawnHashTable = new PawnHashTable(PAWN_HASH_BITS);
+    private final EvaluationCache evaluationCache;
+    private SearchLimits searchLimits = new SearchLimits(0, DEFAULT_MOVE_TIME_MS, 0);
+    private int threads = 1;
+    private int rootNoise;
+    // Consulted before searching; null plays every move from search
+    private OpeningBook openingBook;
+    private ParallelMode parallelMode = ParallelMode.LAZY_SMP;
+    // Thread pools of the parallel modes; null while not in use
+    private ExecutorService helperPool;
+    private ForkJoinPool rootSplitPool;
+
+    // LAZY_SMP: helper threads search the whole tree over the shared transposition table.
+    // ROOT_SPLIT: the first root move is searched serially, the rest are split into fork/join tasks.
+    public enum ParallelMode { LAZY_SMP, ROOT_SPLIT }
+
+    public ChessAI() {
+        this(DEFAULT_HASH_SIZE_MB);
+    }
 
-    public Move getBestMove(ChessBoard board) {
-        List<Move> possibleMoves = board.getAllValidMoves();
-        if (possibleMoves.isEmpty()) {
-            return null; // No valid moves, game is over
+    public ChessAI(int hashSizeMb) {
+        transpositionTable = new TranspositionTable(hashSizeMb);
+        evaluationCache = new EvaluationCache(hashSizeMb / EVALUATION_CACHE_DIVISOR);
+    }
+
+    // Forget everything learned in the previous game
+    public void newGame() {
+        transpositionTable.clear();
+        evaluationCache.clear();
+    }
+
+    public EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
+
+    public SearchLimits getSearchLimits() {
+        return searchLimits;
+    }
+
+    public void setSearchLimits(SearchLimits searchLimits) {
+        this.searchLimits = searchLimits;
+    }
+
+    public int getRootNoise() {
+        return rootNoise;
+    }
+
+    // Randomizes root move scores by up to this many centipawns either way so games vary; 0 plays deterministically
+    public void setRootNoise(int rootNoise) {
+        this.rootNoise = Math.max(0, rootNoise);
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // More than one thread runs the search in the current parallel mode; one thread keeps it on the caller
+    public synchronized void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
         }
+        this.threads = threads;
+        restartPools();
+    }
 
-        Collections.shuffle(possibleMoves); // Shuffle moves for variety
-        
-        Move bestMove = null;
-        int bestValue = Integer.MIN_VALUE;
-        ChessBoard.Player currentPlayer = board.getCurrentPlayer();
-        
-        for (Move move : possibleMoves) {
-            ChessBoard newBoard = board.copy();
-            newBoard.makeMove(move);
-            int value = minimax(newBoard, MAX_DEPTH - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, currentPlayer != ChessBoard.Player.WHITE);
-            
-            // Add some randomness to prevent repetitive play
-            value += random.nextInt(10) - 5;
-            
-            if (value > bestValue) {
-                bestValue = value;
-                bestMove = move;
-            }
+    public ParallelMode getParallelMode() {
+        return parallelMode;
+    }
+
+    public synchronized void setParallelMode(ParallelMode parallelMode) {
+        this.parallelMode = parallelMode;
+        restartPools();
+    }
+
+    private void restartPools() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        if (rootSplitPool != null) {
+            rootSplitPool.shutdownNow();
+            rootSplitPool = null;
         }
+        if (threads == 1) {
+            return;
+        }
+        if (parallelMode == ParallelMode.ROOT_SPLIT) {
+            rootSplitPool = new ForkJoinPool(threads);
+        } else {
+            AtomicInteger helperId = new AtomicInteger();
+            helperPool = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "chess-ai-helper-" + helperId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public Move getBestMove(ChessBoard board) {
+        return getBestMove(board, new CancellationToken());
+    }
 
-        return bestMove;
+    public Move getBestMove(ChessBoard board, CancellationToken token) {
+        return search(board, searchLimits, token).getBestMove();
     }
 
-    private int minimax(ChessBoard board, int depth, int alpha, int beta, boolean maximizingPlayer) {
-        if (depth == 0 || board.isGameOver()) {
-            return evaluateBoard(board);
+    // Iterative deepening: returns the best move of the deepest iteration that finished before a limit was hit
+    public SearchResult search(ChessBoard board, SearchLimits limits, CancellationToken token) {
+        return search(board, limits, token, null);
+    }
+
+    // As above, also passing each completed iteration to the listener as it finishes
+    public synchronized SearchResult search(ChessBoard board, SearchLimits limits, CancellationToken token,
+                                            Consumer<SearchResult> listener) {
+        long startTime = System.currentTimeMillis();
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        int moveCount = board.generateMoves(moves);
+        if (moveCount == 0) {
+            return new SearchResult(null, 0, 0, 0, 0); // No valid moves, game is over
+        }
+        Move bookMove = openingBook == null ? null : openingBook.probe(board, random);
+        if (bookMove != null) {
+            return new SearchResult(bookMove, 0, 0, 0, System.currentTimeMillis() - startTime);
         }
 
-        List<Move> possibleMoves = board.getAllValidMoves();
-        Collections.shuffle(possibleMoves); // Shuffle moves for variety
-
-        if (maximizingPlayer) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : possibleMoves) {
-                ChessBoard newBoard = board.copy();
-                newBoard.makeMove(move);
-                int eval = minimax(newBoard, depth - 1, alpha, beta, false);
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : possibleMoves) {
-                ChessBoard newBoard = board.copy();
-                newBoard.makeMove(move);
-                int eval = minimax(newBoard, depth - 1, alpha, beta, true);
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                if (beta <= alpha) {
-                    break;
-                }
+        transpositionTable.newSearch();
+        SearchControl control = new SearchControl(limits, token, startTime);
+
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int id = 1; helperPool != null && id < threads; id++) {
+            // Helpers only fill the shared table; their own results are thrown away
+            SearchWorker helper = new SearchWorker(this, transpositionTable, control, board.copy(), new Random(id));
+            int[] helperMoves = Arrays.copyOf(moves, moveCount);
+            shuffle(helperMoves, new Random(id));
+            int startDepth = 1 + (id & 1);
+            helpers.add(helperPool.submit(() -> helper.iterate(helperMoves, startDepth, limits.getDepth(), null, null)));
+        }
+
+        SearchWorker main = new SearchWorker(this, transpositionTable, control, board.copy(), random);
+        SearchResult result = main.iterate(Arrays.copyOf(moves, moveCount), 1, limits.getDepth(), rootSplitPool, listener);
+
+        control.stop();
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
             }
-            return minEval;
+        }
+
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                control.getNodes(), System.currentTimeMillis() - startTime);
+    }
+
+    private static void shuffle(int[] moves, Random random) {
+        for (int i = moves.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int move = moves[i];
+            moves[i] = moves[j];
+            moves[j] = move;
         }
     }
 
-    private int evaluateBoard(ChessBoard board) {
-        if (board.isCheckmate(ChessBoard.Player.WHITE)) {
-            return -10000;
-        } else if (board.isCheckmate(ChessBoard.Player.BLACK)) {
-            return 10000;
-        } else if (board.isStalemate(board.getCurrentPlayer()) || board.isDraw()) {
+    int evaluateBoard(ChessBoard board) {
+        // Draw rules depend on the move history, which the hash key does not cover, so they are never cached
+        if (board.isDraw()) {
             return 0;
         }
+        long key = board.getHashKey();
+        int score = evaluationCache.probe(key);
+        if (score == EvaluationCache.MISS) {
+            score = evaluatePosition(board);
+            evaluationCache.store(key, score);
+        }
+        return score;
+    }
 
-        int score = 0;
-        int whiteMaterial = 0;
-        int blackMaterial = 0;
-        int whitePositionScore = 0;
-        int blackPositionScore = 0;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board.getPiece(row, col);
-                if (piece != null) {
-                    int pieceValue = getPieceValue(piece.getType());
-                    int positionValue = getPositionValue(piece.getType(), row, col, piece.getPlayer());
-                    
-                    if (piece.getPlayer() == ChessBoard.Player.WHITE) {
-                        whiteMaterial += pieceValue;
-                        whitePositionScore += positionValue;
-                    } else {
-                        blackMaterial += pieceValue;
-                        blackPositionScore += positionValue;
-                    }
-                }
-            }
+    // The evaluation behind the cache; package-private for the benchmarks
+    int evaluatePosition(ChessBoard board) {
+        // Mates are scored by the search, which knows how far from the root they are; a stalemate is a draw at any distance
+        if (board.isStalemate(board.getCurrentPlayer())) {
+            return 0;
         }
 
-        score = (whiteMaterial - blackMaterial) + (whitePositionScore - blackPositionScore);
+        // Material and piece-square sums are maintained incrementally by the board
+        int score = (board.getMaterial(ChessBoard.Player.WHITE) - board.getMaterial(ChessBoard.Player.BLACK))
+                  + evaluatePieceSquares(board);
 
         // Evaluate pawn structure
         score += evaluatePawnStructure(board);
@@ -116,209 +232,129 @@ public class ChessAI {
         // Evaluate king safety
         score += evaluateKingSafety(board);
 
+        // Drive a bare king toward the mating net
+        score += evaluateMopUp(board, ChessBoard.Player.WHITE) - evaluateMopUp(board, ChessBoard.Player.BLACK);
+
         return score;
     }
 
-    private int getPieceValue(ChessPiece.Type type) {
-        switch (type) {
-            case PAWN: return 100;
-            case KNIGHT: return 320;
-            case BISHOP: return 330;
-            case ROOK: return 500;
-            case QUEEN: return 900;
-            case KING: return 20000;
-            default: return 0;
+    // Against a lone king, mates lie beyond the search horizon; rewarding a cornered enemy king and a close
+    // friendly king makes every step toward the mate look like progress
+    private int evaluateMopUp(ChessBoard board, ChessBoard.Player player) {
+        ChessBoard.Player enemy = player == ChessBoard.Player.WHITE ? ChessBoard.Player.BLACK : ChessBoard.Player.WHITE;
+        if (Long.bitCount(board.getOccupancy(enemy)) != 1 || Long.bitCount(board.getOccupancy(player)) == 1) {
+            return 0;
         }
+        int king = board.getKingSquare(player);
+        int enemyKing = board.getKingSquare(enemy);
+        int enemyRow = enemyKing / 8;
+        int enemyCol = enemyKing % 8;
+        int centerDistance = Math.max(3 - enemyRow, enemyRow - 4) + Math.max(3 - enemyCol, enemyCol - 4);
+        int kingDistance = Math.abs(king / 8 - enemyRow) + Math.abs(king % 8 - enemyCol);
+        return MOP_UP_EDGE_BONUS * centerDistance + MOP_UP_PROXIMITY_BONUS * (14 - kingDistance);
     }
 
-    private int getPositionValue(ChessPiece.Type type, int row, int col, ChessBoard.Player player) {
-        int[][] pawnTable = {
-            { 0,  0,  0,  0,  0,  0,  0,  0},
-            {50, 50, 50, 50, 50, 50, 50, 50},
-            {10, 10, 20, 30, 30, 20, 10, 10},
-            { 5,  5, 10, 25, 25, 10,  5,  5},
-            { 0,  0,  0, 20, 20,  0,  0,  0},
-            { 5, -5,-10,  0,  0,-10, -5,  5},
-            { 5, 10, 10,-20,-20, 10, 10,  5},
-            { 0,  0,  0,  0,  0,  0,  0,  0}
-        };
-
-        int[][] knightTable = {
-            {-50,-40,-30,-30,-30,-30,-40,-50},
-            {-40,-20,  0,  0,  0,  0,-20,-40},
-            {-30,  0, 10, 15, 15, 10,  0,-30},
-            {-30,  5, 15, 20, 20, 15,  5,-30},
-            {-30,  0, 15, 20, 20, 15,  0,-30},
-            {-30,  5, 10, 15, 15, 10,  5,-30},
-            {-40,-20,  0,  5,  5,  0,-20,-40},
-            {-50,-40,-30,-30,-30,-30,-40,-50}
-        };
-
-        int[][] bishopTable = {
-            {-20,-10,-10,-10,-10,-10,-10,-20},
-            {-10,  0,  0,  0,  0,  0,  0,-10},
-            {-10,  0,  5, 10, 10,  5,  0,-10},
-            {-10,  5,  5, 10, 10,  5,  5,-10},
-            {-10,  0, 10, 10, 10, 10,  0,-10},
-            {-10, 10, 10, 10, 10, 10, 10,-10},
-            {-10,  5,  0,  0,  0,  0,  5,-10},
-            {-20,-10,-10,-10,-10,-10,-10,-20}
-        };
-
-        int[][] rookTable = {
-            { 0,  0,  0,  0,  0,  0,  0,  0},
-            { 5, 10, 10, 10, 10, 10, 10,  5},
-            {-5,  0,  0,  0,  0,  0,  0, -5},
-            {-5,  0,  0,  0,  0,  0,  0, -5},
-            {-5,  0,  0,  0,  0,  0,  0, -5},
-            {-5,  0,  0,  0,  0,  0,  0, -5},
-            {-5,  0,  0,  0,  0,  0,  0, -5},
-            { 0,  0,  0,  5,  5,  0,  0,  0}
-        };
-
-        int[][] queenTable = {
-            {-20,-10,-10, -5, -5,-10,-10,-20},
-            {-10,  0,  0,  0,  0,  0,  0,-10},
-            {-10,  0,  5,  5,  5,  5,  0,-10},
-            { -5,  0,  5,  5,  5,  5,  0, -5},
-            {  0,  0,  5,  5,  5,  5,  0, -5},
-            {-10,  5,  5,  5,  5,  5,  0,-10},
-            {-10,  0,  5,  0,  0,  0,  0,-10},
-            {-20,-10,-10, -5, -5,-10,-10,-20}
-        };
-
-        int[][] kingTable = {
-            {-30,-40,-40,-50,-50,-40,-40,-30},
-            {-30,-40,-40,-50,-50,-40,-40,-30},
-            {-30,-40,-40,-50,-50,-40,-40,-30},
-            {-30,-40,-40,-50,-50,-40,-40,-30},
-            {-20,-30,-30,-40,-40,-30,-30,-20},
-            {-10,-20,-20,-20,-20,-20,-20,-10},
-            { 20, 20,  0,  0,  0,  0, 20, 20},
-            { 20, 30, 10,  0,  0, 10, 30, 20}
-        };
-
-        int[][] selectedTable;
-        switch (type) {
-            case PAWN: selectedTable = pawnTable; break;
-            case KNIGHT: selectedTable = knightTable; break;
-            case BISHOP: selectedTable = bishopTable; break;
-            case ROOK: selectedTable = rookTable; break;
-            case QUEEN: selectedTable = queenTable; break;
-            case KING: selectedTable = kingTable; break;
-            default: return 0;
-        }
+    // Tapered piece-square score: midgame and endgame tables blended by how much material is left
+    private int evaluatePieceSquares(ChessBoard board) {
+        int midgame = board.getMidgameScore(ChessBoard.Player.WHITE) - board.getMidgameScore(ChessBoard.Player.BLACK);
+        int endgame = board.getEndgameScore(ChessBoard.Player.WHITE) - board.getEndgameScore(ChessBoard.Player.BLACK);
+        int phase = board.getGamePhase();
+        return (midgame * phase + endgame * (PieceSquareTables.PHASE_TOTAL - phase)) / PieceSquareTables.PHASE_TOTAL;
+    }
 
-        if (player == ChessBoard.Player.WHITE) {
-            return selectedTable[7 - row][col];
-        } else {
-            return selectedTable[row][col];
+    // Pawn structure depends on the pawns alone, so it is cached by the pawn hash key
+    private int evaluatePawnStructure(ChessBoard board) {
+        long pawnKey = board.getPawnHashKey();
+        int score = pawnHashTable.probe(pawnKey);
+        if (score == PawnHashTable.MISS) {
+            long whitePawns = board.getPieceBitboard(ChessPiece.Type.PAWN, ChessBoard.Player.WHITE);
+            long blackPawns = board.getPieceBitboard(ChessPiece.Type.PAWN, ChessBoard.Player.BLACK);
+            score = evaluatePawns(whitePawns, blackPawns, ChessBoard.Player.WHITE)
+                  - evaluatePawns(blackPawns, whitePawns, ChessBoard.Player.BLACK);
+            pawnHashTable.store(pawnKey, score);
         }
+        return score;
     }
 
-    private int evaluatePawnStructure(ChessBoard board) {
+    private int evaluatePawns(long pawns, long enemyPawns, ChessBoard.Player player) {
         int score = 0;
         for (int col = 0; col < 8; col++) {
-            boolean whitePawnInColumn = false;
-            boolean blackPawnInColumn = false;
-            for (int row = 0; row < 8; row++) {
-                ChessPiece piece = board.getPiece(row, col);
-                if (piece != null && piece.getType() == ChessPiece.Type.PAWN) {
-                    if (piece.getPlayer() == ChessBoard.Player.WHITE) {
-                        whitePawnInColumn = true;
-                    } else {
-                        blackPawnInColumn = true;
-                    }
-                }
+            int count = Long.bitCount(pawns & Bitboards.FILES[col]);
+            if (count > 1) {
+                score -= DOUBLED_PAWN_PENALTY * (count - 1);
+            }
+            if (count > 0 && (pawns & Bitboards.ADJACENT_FILES[col]) == 0) {
+                score -= ISOLATED_PAWN_PENALTY * count;
+            }
+        }
+        long remaining = pawns;
+        while (remaining != 0) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            if ((Bitboards.PASSED_PAWN_MASKS[player.ordinal()][square] & enemyPawns) == 0) {
+                int rank = player == ChessBoard.Player.WHITE ? square / 8 : 7 - square / 8;
+                score += PASSED_PAWN_BONUS[rank];
             }
-            if (whitePawnInColumn) score -= 10; // Penalize doubled pawns
-            if (blackPawnInColumn) score += 10;
-            if (!whitePawnInColumn) score -= 20; // Penalize open files
-            if (!blackPawnInColumn) score += 20;
         }
         return score;
     }
 
+    // Mobility of both sides from attack bitboards: every square a knight, bishop, rook or queen attacks
+    // that is not occupied by a friendly piece is worth 5 points
     private int evaluatePieceActivity(ChessBoard board) {
-        int score = 0;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board.getPiece(row, col);
-                if (piece != null) {
-                    final int currentRow = row; 
-                    final int currentCol = col;
-                    int mobility = (int) board.getAllValidMoves().stream()
-                        .filter(m -> m.getFromRow() == currentRow && m.getFromCol() == currentCol)
-                        .count();
-                
-                    if (piece.getPlayer() == ChessBoard.Player.WHITE) {
-                        score += mobility * 5;
-                    } else {
-                        score -= mobility * 5;
-                    }
-                }
-            }
+        return 5 * (mobility(board, ChessBoard.Player.WHITE) - mobility(board, ChessBoard.Player.BLACK));
+    }
+
+    private int mobility(ChessBoard board, ChessBoard.Player player) {
+        long occupied = board.getAllPieces();
+        long available = ~board.getOccupancy(player);
+        int mobility = 0;
+
+        long knights = board.getPieceBitboard(ChessPiece.Type.KNIGHT, player);
+        while (knights != 0) {
+            mobility += Long.bitCount(Bitboards.KNIGHT_ATTACKS[Long.numberOfTrailingZeros(knights)] & available);
+            knights &= knights - 1;
         }
-        return score;
+        long diagonal = board.getPieceBitboard(ChessPiece.Type.BISHOP, player) | board.getPieceBitboard(ChessPiece.Type.QUEEN, player);
+        while (diagonal != 0) {
+            mobility += Long.bitCount(Bitboards.bishopAttacks(Long.numberOfTrailingZeros(diagonal), occupied) & available);
+            diagonal &= diagonal - 1;
+        }
+        long straight = board.getPieceBitboard(ChessPiece.Type.ROOK, player) | board.getPieceBitboard(ChessPiece.Type.QUEEN, player);
+        while (straight != 0) {
+            mobility += Long.bitCount(Bitboards.rookAttacks(Long.numberOfTrailingZeros(straight), occupied) & available);
+            straight &= straight - 1;
+        }
+        return mobility;
     }
 
     private int evaluateKingSafety(ChessBoard board) {
         int score = 0;
-        int[] whiteKingPos = findKing(board, ChessBoard.Player.WHITE);
-        int[] blackKingPos = findKing(board, ChessBoard.Player.BLACK);
+        int whiteKing = board.getKingSquare(ChessBoard.Player.WHITE);
+        int blackKing = board.getKingSquare(ChessBoard.Player.BLACK);
 
-        if (whiteKingPos != null) {
-            score -= evaluateKingSafetyForPlayer(board, whiteKingPos[0], whiteKingPos[1], ChessBoard.Player.WHITE);
+        if (whiteKing >= 0) {
+            score -= evaluateKingSafetyForPlayer(board, whiteKing, ChessBoard.Player.WHITE);
         }
-        if (blackKingPos != null) {
-            score += evaluateKingSafetyForPlayer(board, blackKingPos[0], blackKingPos[1], ChessBoard.Player.BLACK);
+        if (blackKing >= 0) {
+            score += evaluateKingSafetyForPlayer(board, blackKing, ChessBoard.Player.BLACK);
         }
 
         return score;
     }
 
-    private int evaluateKingSafetyForPlayer(ChessBoard board, int kingRow, int kingCol, ChessBoard.Player player) {
-        int safety = 0;
-        int[][] directions = {{-1,-1}, {-1,0}, {-1,1}, {0,-1}, {0,1}, {1,-1}, {1,0}, {1,1}};
-        
-        for (int[] dir : directions) {
-            int newRow = kingRow + dir[0];
-            int newCol = kingCol + dir[1];
-            if (newRow >= 0 && newRow < 8 && newCol >= 0 && newCol < 8) {
-                ChessPiece piece = board.getPiece(newRow, newCol);
-                if (piece != null && piece.getPlayer() == player) {
-                    safety += 10; // Friendly piece protecting the king
-                }
-            }
-        }
-        
+    private int evaluateKingSafetyForPlayer(ChessBoard board, int kingSquare, ChessBoard.Player player) {
+        // Friendly pieces protecting the king
+        int safety = 10 * Long.bitCount(Bitboards.KING_ATTACKS[kingSquare] & board.getOccupancy(player));
+
         // Penalize for open files near the king
+        int kingCol = kingSquare % 8;
         for (int col = Math.max(0, kingCol - 1); col <= Math.min(7, kingCol + 1); col++) {
-            boolean openFile = true;
-            for (int row = 0; row < 8; row++) {
-                if (board.getPiece(row, col) != null) {
-                    openFile = false;
-                    break;
-                }
-            }
-            if (openFile) {
+            if ((board.getAllPieces() & (Bitboards.FILE_A << col)) == 0) {
                 safety -= 20;
             }
         }
         
         return safety;
     }
-
-    private int[] findKing(ChessBoard board, ChessBoard.Player player) {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board.getPiece(row, col);
-                if (piece != null && piece.getType() == ChessPiece.Type.KING && piece.getPlayer() == player) {
-                    return new int[]{row, col};
-                }
-            }
-        }
-        return null;
-    }
 }
-
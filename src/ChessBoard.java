@@ -1,69 +1,381 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ChessBoard {
-    private ChessPiece[][] board;
+    // Upper bound on legal moves in any position, for sizing move buffers
+    public static final int MAX_MOVES = 256;
+    private static final int EMPTY = -1;
+    // Piece type offsets within a color's bitboards, in ChessPiece.Type order
+    private static final int PAWN = 0, ROOK = 1, KNIGHT = 2, BISHOP = 3, QUEEN = 4, KING = 5;
+    // Piece values used by static exchange evaluation, in ChessPiece.Type order, and the order attackers are tried in
+    private static final int[] EXCHANGE_VALUES = {100, 500, 320, 330, 900, 20000};
+    private static final int[] EXCHANGE_ORDER = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+    // Castling rights bits, and the rights that survive a move from or to each square
+    private static final int WHITE_KINGSIDE = 1, WHITE_QUEENSIDE = 2, BLACK_KINGSIDE = 4, BLACK_QUEENSIDE = 8;
+    private static final int[] CASTLING_MASK = new int[64];
+    // The clock has 16 bits in the undo stack; past the fifty-move rule its exact value no longer matters
+    private static final int MAX_HALF_MOVE_CLOCK = 0xFFFF;
+    // FEN letters by piece index, and by castling rights bit
+    private static final String FEN_PIECES = "PRNBQKprnbqk";
+    private static final String CASTLING_LETTERS = "KQkq";
+    // Promotion pieces in the order they are generated
+    private static final int[] PROMOTIONS = {QUEEN, ROOK, BISHOP, KNIGHT};
+    private static final ChessPiece.Type[] BACK_RANK = {
+        ChessPiece.Type.ROOK, ChessPiece.Type.KNIGHT, ChessPiece.Type.BISHOP, ChessPiece.Type.QUEEN,
+        ChessPiece.Type.KING, ChessPiece.Type.BISHOP, ChessPiece.Type.KNIGHT, ChessPiece.Type.ROOK
+    };
+
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+    }
+
+    // One bitboard per piece type and color (index = player * 6 + type), bit n is square row * 8 + col
+    private final long[] pieceBitboards = new long[12];
+    private final long[] occupancy = new long[2];
+    private long allPieces;
+    // Piece index per square, kept in sync with the bitboards for O(1) lookups
+    private final int[] squares = new int[64];
+    // Evaluation terms per color, updated by putPiece/removePiece so evaluation never rescans the board
+    private final int[] material = new int[2];
+    private final int[] midgameScore = new int[2];
+    private final int[] endgameScore = new int[2];
+    private int gamePhase;
     private Player currentPlayer;
+    private int castlingRights;
+    // Square a pawn can capture en passant onto, or -1; only set when an enemy pawn is there to capture
+    private int enPassantSquare = -1;
+    // Zobrist key of the position, updated incrementally by putPiece/removePiece and side changes
+    private long hashKey;
+    // Zobrist key over the pawns alone, for the pawn structure cache
+    private long pawnHashKey;
     private int selectedRow = -1;
     private int selectedCol = -1;
     private int moveCount;
     private int halfMoveClock; // For fifty-move rule
-    private List<Move> moveHistory = new ArrayList<>();
-    private List<ChessPiece> capturedPieces = new ArrayList<>();
+    private final int[] exchangeGains = new int[32];
+    // Check and pin information for the side to move, refreshed by computeCheckInfo() before generating moves
+    private int checkKingSquare;
+    private long checkers;
+    private long pinned;
+    private long evasionMask;
+    // Undo stack: the packed moves played (see Move.encode), plus the state each move overwrote as
+    // halfMoveClock | castlingRights << 16 | (enPassantSquare + 1) << 20
+    private int[] moveHistory = new int[256];
+    private int[] stateHistory = new int[256];
+    // Hash key of the position before each move, for repetition detection
+    private long[] hashHistory = new long[256];
+    private int historySize;
 
     public enum Player { WHITE, BLACK }
 
+    public enum GameState { IN_PROGRESS, CHECKMATE, STALEMATE, DRAW }
+
     public ChessBoard() {
-        board = new ChessPiece[8][8];
         resetBoard();
     }
 
+    private ChessBoard(ChessBoard other) {
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, 12);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, 2);
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        System.arraycopy(other.material, 0, material, 0, 2);
+        System.arraycopy(other.midgameScore, 0, midgameScore, 0, 2);
+        System.arraycopy(other.endgameScore, 0, endgameScore, 0, 2);
+        gamePhase = other.gamePhase;
+        allPieces = other.allPieces;
+        hashKey = other.hashKey;
+        pawnHashKey = other.pawnHashKey;
+        currentPlayer = other.currentPlayer;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        moveCount = other.moveCount;
+        halfMoveClock = other.halfMoveClock;
+        moveHistory = Arrays.copyOf(other.moveHistory, other.moveHistory.length);
+        stateHistory = Arrays.copyOf(other.stateHistory, other.stateHistory.length);
+        hashHistory = Arrays.copyOf(other.hashHistory, other.hashHistory.length);
+        historySize = other.historySize;
+    }
+
     public void resetBoard() {
-        // Initialize white pieces
-        board[0][0] = new ChessPiece(ChessPiece.Type.ROOK, Player.WHITE);
-        board[0][1] = new ChessPiece(ChessPiece.Type.KNIGHT, Player.WHITE);
-        board[0][2] = new ChessPiece(ChessPiece.Type.BISHOP, Player.WHITE);
-        board[0][3] = new ChessPiece(ChessPiece.Type.QUEEN, Player.WHITE);
-        board[0][4] = new ChessPiece(ChessPiece.Type.KING, Player.WHITE);
-        board[0][5] = new ChessPiece(ChessPiece.Type.BISHOP, Player.WHITE);
-        board[0][6] = new ChessPiece(ChessPiece.Type.KNIGHT, Player.WHITE);
-        board[0][7] = new ChessPiece(ChessPiece.Type.ROOK, Player.WHITE);
-        for (int i = 0; i < 8; i++) {
-            board[1][i] = new ChessPiece(ChessPiece.Type.PAWN, Player.WHITE);
-        }
-
-        // Initialize black pieces
-        board[7][0] = new ChessPiece(ChessPiece.Type.ROOK, Player.BLACK);
-        board[7][1] = new ChessPiece(ChessPiece.Type.KNIGHT, Player.BLACK);
-        board[7][2] = new ChessPiece(ChessPiece.Type.BISHOP, Player.BLACK);
-        board[7][3] = new ChessPiece(ChessPiece.Type.QUEEN, Player.BLACK);
-        board[7][4] = new ChessPiece(ChessPiece.Type.KING, Player.BLACK);
-        board[7][5] = new ChessPiece(ChessPiece.Type.BISHOP, Player.BLACK);
-        board[7][6] = new ChessPiece(ChessPiece.Type.KNIGHT, Player.BLACK);
-        board[7][7] = new ChessPiece(ChessPiece.Type.ROOK, Player.BLACK);
-        for (int i = 0; i < 8; i++) {
-            board[6][i] = new ChessPiece(ChessPiece.Type.PAWN, Player.BLACK);
-        }
-
-        // Initialize empty squares
-        for (int i = 2; i < 6; i++) {
-            for (int j = 0; j < 8; j++) {
-                board[i][j] = null;
-            }
+        clear();
+        for (int col = 0; col < 8; col++) {
+            // Initialize white pieces
+            putPiece(col, ChessPiece.indexOf(BACK_RANK[col], Player.WHITE));
+            putPiece(8 + col, ChessPiece.indexOf(ChessPiece.Type.PAWN, Player.WHITE));
+            // Initialize black pieces
+            putPiece(56 + col, ChessPiece.indexOf(BACK_RANK[col], Player.BLACK));
+            putPiece(48 + col, ChessPiece.indexOf(ChessPiece.Type.PAWN, Player.BLACK));
         }
 
         currentPlayer = Player.WHITE;
+        castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        hashKey ^= Zobrist.CASTLING[castlingRights];
         moveCount = 1;
         halfMoveClock = 0;
     }
 
+    // Sets up the position described by a FEN string, forgetting the move history. Parses straight from
+    // the character sequence without allocating, so bulk loaders can reuse one line buffer and one board.
+    // The move counters are optional, which also accepts the first four fields of an EPD line.
+    public void setFen(CharSequence fen) {
+        validateFen(fen);
+        clear();
+        int index = 0;
+        int row = 7;
+        int col = 0;
+        for (; index < fen.length() && fen.charAt(index) != ' '; index++) {
+            char c = fen.charAt(index);
+            if (c == '/') {
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                putPiece(row * 8 + col, FEN_PIECES.indexOf(c));
+                col++;
+            }
+        }
+
+        currentPlayer = fen.charAt(++index) == 'b' ? Player.BLACK : Player.WHITE;
+        if (currentPlayer == Player.BLACK) {
+            hashKey ^= Zobrist.BLACK_TO_MOVE;
+        }
+        index += 2;
+        for (; index < fen.length() && fen.charAt(index) != ' '; index++) {
+            int right = CASTLING_LETTERS.indexOf(fen.charAt(index));
+            if (right >= 0) {
+                castlingRights |= 1 << right;
+            }
+        }
+        hashKey ^= Zobrist.CASTLING[castlingRights];
+
+        char file = fen.charAt(++index);
+        if (file >= 'a' && file <= 'h') {
+            int square = (fen.charAt(index + 1) - '1') * 8 + file - 'a';
+            int us = currentPlayer.ordinal();
+            int forward = us == 0 ? 8 : -8;
+            // Only recorded after a double push that can have happened, with the enemy pawn in front of the square
+            // and the square and the one behind it empty, and when a pawn can actually capture, as makeMove does
+            if (square / 8 == (us == 0 ? 5 : 2)
+                    && squares[square] == EMPTY && squares[square + forward] == EMPTY
+                    && squares[square - forward] == (1 - us) * 6 + PAWN
+                    && (Bitboards.PAWN_ATTACKS[1 - us][square] & pieceBitboards[us * 6 + PAWN]) != 0) {
+                enPassantSquare = square;
+                hashKey ^= Zobrist.EN_PASSANT[square & 7];
+            }
+        }
+        while (index < fen.length() && fen.charAt(index) != ' ') {
+            index++;
+        }
+
+        halfMoveClock = 0;
+        while (++index < fen.length() && Character.isDigit(fen.charAt(index))) {
+            halfMoveClock = Math.min(halfMoveClock * 10 + fen.charAt(index) - '0', MAX_HALF_MOVE_CLOCK);
+        }
+        moveCount = 0;
+        while (++index < fen.length() && Character.isDigit(fen.charAt(index))) {
+            moveCount = moveCount * 10 + fen.charAt(index) - '0';
+        }
+        moveCount = Math.max(1, moveCount);
+    }
+
+    // Reads every field setFen relies on without touching the board, so a bad FEN leaves the position as it was
+    private static void validateFen(CharSequence fen) {
+        int index = 0;
+        int row = 7;
+        int col = 0;
+        int whiteKings = 0;
+        int blackKings = 0;
+        for (; index < fen.length() && fen.charAt(index) != ' '; index++) {
+            char c = fen.charAt(index);
+            if (c == '/') {
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int piece = FEN_PIECES.indexOf(c);
+                if (piece < 0 || row < 0 || col > 7) {
+                    throw invalidFen("piece placement", fen);
+                }
+                if (piece == KING) {
+                    whiteKings++;
+                } else if (piece == 6 + KING) {
+                    blackKings++;
+                }
+                col++;
+            }
+        }
+        if (whiteKings != 1 || blackKings != 1) {
+            throw invalidFen("one king per side", fen);
+        }
+
+        char side = fenField(fen, ++index);
+        if (side != 'w' && side != 'b') {
+            throw invalidFen("side to move", fen);
+        }
+        index += 2;
+        while (index < fen.length() && fen.charAt(index) != ' ') {
+            index++;
+        }
+        char file = fenField(fen, ++index);
+        if (file >= 'a' && file <= 'h') {
+            fenField(fen, index + 1);
+        }
+    }
+
+    private static char fenField(CharSequence fen, int index) {
+        if (index >= fen.length()) {
+            throw invalidFen("all fields", fen);
+        }
+        return fen.charAt(index);
+    }
+
+    private static IllegalArgumentException invalidFen(String expected, CharSequence fen) {
+        return new IllegalArgumentException("Invalid FEN, expected " + expected + ": " + fen);
+    }
+
+    public String getFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = squares[row * 8 + col];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(FEN_PIECES.charAt(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(currentPlayer == Player.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        }
+        for (int right = 0; right < 4; right++) {
+            if ((castlingRights & (1 << right)) != 0) {
+                fen.append(CASTLING_LETTERS.charAt(right));
+            }
+        }
+        fen.append(' ');
+        if (enPassantSquare == -1) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + enPassantSquare % 8)).append((char) ('1' + enPassantSquare / 8));
+        }
+        return fen.append(' ').append(halfMoveClock).append(' ').append(moveCount).toString();
+    }
+
+    private void clear() {
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(occupancy, 0L);
+        Arrays.fill(squares, EMPTY);
+        Arrays.fill(material, 0);
+        Arrays.fill(midgameScore, 0);
+        Arrays.fill(endgameScore, 0);
+        gamePhase = 0;
+        allPieces = 0L;
+        hashKey = 0L;
+        pawnHashKey = 0L;
+        castlingRights = 0;
+        enPassantSquare = -1;
+        historySize = 0;
+    }
+
+    private void putPiece(int square, int piece) {
+        long bit = 1L << square;
+        pieceBitboards[piece] |= bit;
+        occupancy[piece / 6] |= bit;
+        allPieces |= bit;
+        squares[square] = piece;
+        hashKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        updateEvaluationTerms(piece, square, 1);
+    }
+
+    private void removePiece(int square) {
+        int piece = squares[square];
+        long bit = ~(1L << square);
+        pieceBitboards[piece] &= bit;
+        occupancy[piece / 6] &= bit;
+        allPieces &= bit;
+        squares[square] = EMPTY;
+        hashKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        updateEvaluationTerms(piece, square, -1);
+    }
+
+    private void updateEvaluationTerms(int piece, int square, int sign) {
+        int color = piece / 6;
+        int type = piece % 6;
+        material[color] += sign * PieceSquareTables.MATERIAL[type];
+        midgameScore[color] += sign * PieceSquareTables.MIDGAME[piece][square];
+        endgameScore[color] += sign * PieceSquareTables.ENDGAME[piece][square];
+        gamePhase += sign * PieceSquareTables.PHASE_WEIGHTS[type];
+        if (type == PAWN) {
+            pawnHashKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        }
+    }
+
     public ChessPiece getPiece(int row, int col) {
-        return board[row][col];
+        int piece = squares[row * 8 + col];
+        return piece == EMPTY ? null : ChessPiece.fromIndex(piece);
+    }
+
+    public long getPieceBitboard(ChessPiece.Type type, Player player) {
+        return pieceBitboards[ChessPiece.indexOf(type, player)];
+    }
+
+    public long getOccupancy(Player player) {
+        return occupancy[player.ordinal()];
+    }
+
+    public long getAllPieces() {
+        return allPieces;
+    }
+
+    public int getMaterial(Player player) {
+        return material[player.ordinal()];
+    }
+
+    // Sums of the player's midgame and endgame piece-square bonuses
+    public int getMidgameScore(Player player) {
+        return midgameScore[player.ordinal()];
+    }
+
+    public int getEndgameScore(Player player) {
+        return endgameScore[player.ordinal()];
+    }
+
+    // From PieceSquareTables.PHASE_TOTAL with all pieces on the board down to 0 with only kings and pawns left
+    public int getGamePhase() {
+        return Math.min(gamePhase, PieceSquareTables.PHASE_TOTAL);
+    }
+
+    // Returns row * 8 + col of the player's king, or -1 if it is not on the board
+    public int getKingSquare(Player player) {
+        long king = pieceBitboards[player.ordinal() * 6 + KING];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
     }
 
     public boolean selectSquare(int row, int col) {
         if (selectedRow == -1) {
-            if (board[row][col] != null && board[row][col].getPlayer() == currentPlayer) {
+            if (isOwnPiece(row * 8 + col, currentPlayer)) {
                 selectedRow = row;
                 selectedCol = col;
                 return true;
@@ -83,146 +395,468 @@ public class ChessBoard {
         return false;
     }
 
+    private boolean isOwnPiece(int square, Player player) {
+        return (occupancy[player.ordinal()] & (1L << square)) != 0;
+    }
+
+    private static Player opponent(Player player) {
+        return player == Player.WHITE ? Player.BLACK : Player.WHITE;
+    }
+
     public void makeMove(Move move) {
-        ChessPiece capturedPiece = board[move.getToRow()][move.getToCol()];
-        ChessPiece movingPiece = board[move.getFromRow()][move.getFromCol()];
-        
-        board[move.getToRow()][move.getToCol()] = movingPiece;
-        board[move.getFromRow()][move.getFromCol()] = null;
-        
-        moveHistory.add(move);
-        capturedPieces.add(capturedPiece);
-        
+        makeMove(encodeMove(move));
+    }
+
+    // Packs a move given by its squares in the current position into the engine's int encoding,
+    // recognizing castling (a king moving two files), en passant and promotion
+    public int encodeMove(Move move) {
+        int from = move.getFromRow() * 8 + move.getFromCol();
+        int to = move.getToRow() * 8 + move.getToCol();
+        int piece = squares[from];
+        int captured = squares[to];
+        int promotion = Move.NO_PIECE;
+        int flags = 0;
+        if (piece % 6 == KING && Math.abs(to - from) == 2) {
+            flags = Move.CASTLING;
+        } else if (piece % 6 == PAWN) {
+            if (to == enPassantSquare && from % 8 != to % 8) {
+                flags = Move.EN_PASSANT;
+                captured = squares[to + (piece < 6 ? -8 : 8)];
+            } else if (to / 8 == 0 || to / 8 == 7) {
+                promotion = move.getPromotion() == null ? QUEEN : move.getPromotion().ordinal();
+            }
+        }
+        return Move.encode(from, to, piece, captured, promotion, flags);
+    }
+
+    // Applies a packed move in place; unmakeMove() restores every piece of state it changes without allocating
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int promotion = Move.promotion(move);
+        int movingPiece = squares[from];
+        int capturedPiece = squares[to];
+        int us = currentPlayer.ordinal();
+
+        if (historySize == moveHistory.length) {
+            moveHistory = Arrays.copyOf(moveHistory, historySize * 2);
+            stateHistory = Arrays.copyOf(stateHistory, historySize * 2);
+            hashHistory = Arrays.copyOf(hashHistory, historySize * 2);
+        }
+        moveHistory[historySize] = move;
+        stateHistory[historySize] = halfMoveClock | castlingRights << 16 | (enPassantSquare + 1) << 20;
+        hashHistory[historySize] = hashKey;
+        historySize++;
+
+        if (enPassantSquare != -1) {
+            hashKey ^= Zobrist.EN_PASSANT[enPassantSquare & 7];
+            enPassantSquare = -1;
+        }
+
+        if (flags == Move.EN_PASSANT) {
+            capturedPiece = squares[to + (us == 0 ? -8 : 8)];
+            removePiece(to + (us == 0 ? -8 : 8));
+        } else if (capturedPiece != EMPTY) {
+            removePiece(to);
+        }
+        removePiece(from);
+        putPiece(to, promotion == Move.NO_PIECE ? movingPiece : us * 6 + promotion);
+        if (flags == Move.CASTLING) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            int rook = squares[rookFrom];
+            removePiece(rookFrom);
+            putPiece(rookTo, rook);
+        }
+
+        hashKey ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        hashKey ^= Zobrist.CASTLING[castlingRights];
+
+        if (movingPiece % 6 == PAWN && Math.abs(to - from) == 16) {
+            int passed = (from + to) / 2;
+            if ((Bitboards.PAWN_ATTACKS[us][passed] & pieceBitboards[(1 - us) * 6 + PAWN]) != 0) {
+                enPassantSquare = passed;
+                hashKey ^= Zobrist.EN_PASSANT[passed & 7];
+            }
+        }
+
         if (currentPlayer == Player.BLACK) {
             moveCount++;
         }
-        
-        if (movingPiece.getType() == ChessPiece.Type.PAWN || capturedPiece != null) {
+
+        if (movingPiece % 6 == PAWN || capturedPiece != EMPTY) {
             halfMoveClock = 0;
-        } else {
+        } else if (halfMoveClock < MAX_HALF_MOVE_CLOCK) {
             halfMoveClock++;
         }
-        
-        currentPlayer = (currentPlayer == Player.WHITE) ? Player.BLACK : Player.WHITE;
+
+        currentPlayer = opponent(currentPlayer);
+        hashKey ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    public void unmakeMove() {
+        historySize--;
+        int move = moveHistory[historySize];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int capturedPiece = Move.captured(move);
+
+        currentPlayer = opponent(currentPlayer);
+        if (flags == Move.CASTLING) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            int rook = squares[rookTo];
+            removePiece(rookTo);
+            putPiece(rookFrom, rook);
+        }
+        removePiece(to);
+        putPiece(from, Move.piece(move));
+        if (flags == Move.EN_PASSANT) {
+            putPiece(to + (currentPlayer == Player.WHITE ? -8 : 8), capturedPiece);
+        } else if (capturedPiece != EMPTY) {
+            putPiece(to, capturedPiece);
+        }
+
+        if (currentPlayer == Player.BLACK) {
+            moveCount--;
+        }
+        int state = stateHistory[historySize];
+        halfMoveClock = state & 0xFFFF;
+        castlingRights = (state >>> 16) & 15;
+        enPassantSquare = (state >>> 20) - 1;
+        hashKey = hashHistory[historySize];
     }
 
     public boolean isValidMove(Move move) {
-        ChessPiece piece = board[move.getFromRow()][move.getFromCol()];
-        if (piece == null || piece.getPlayer() != currentPlayer) {
+        int from = move.getFromRow() * 8 + move.getFromCol();
+        if (!isOwnPiece(from, currentPlayer)) {
             return false;
         }
+        int encoded = encodeMove(move);
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == encoded) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        // Check if the destination square is occupied by a piece of the same color
-        if (board[move.getToRow()][move.getToCol()] != null && 
-            board[move.getToRow()][move.getToCol()].getPlayer() == currentPlayer) {
-            return false;
+    public List<Move> getAllValidMoves() {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves);
+        List<Move> validMoves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            validMoves.add(Move.fromInt(moves[i]));
         }
+        return validMoves;
+    }
 
-        int rowDiff = Math.abs(move.getToRow() - move.getFromRow());
-        int colDiff = Math.abs(move.getToCol() - move.getFromCol());
+    // Writes the legal moves into the buffer as packed ints and returns how many there are
+    public int generateMoves(int[] moves) {
+        return generateMoves(moves, false);
+    }
 
-        boolean isValidPieceMove = false;
+    // Legal captures and queen promotions, for quiescence search
+    public int generateCaptures(int[] moves) {
+        return generateMoves(moves, true);
+    }
 
-        switch (piece.getType()) {
-            case PAWN:
-                isValidPieceMove = isValidPawnMove(move);
-                break;
-            case ROOK:
-                isValidPieceMove = (rowDiff == 0 || colDiff == 0) && isClearPath(move);
-                break;
-            case KNIGHT:
-                isValidPieceMove = (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
-                break;
-            case BISHOP:
-                isValidPieceMove = rowDiff == colDiff && isClearPath(move);
-                break;
-            case QUEEN:
-                isValidPieceMove = (rowDiff == colDiff || rowDiff == 0 || colDiff == 0) && isClearPath(move);
-                break;
-            case KING:
-                isValidPieceMove = rowDiff <= 1 && colDiff <= 1;
-                break;
+    private int generateMoves(int[] moves, boolean tacticalOnly) {
+        int count = 0;
+        computeCheckInfo();
+        int us = currentPlayer.ordinal();
+        long enemies = occupancy[1 - us];
+        long promotionRank = currentPlayer == Player.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long own = occupancy[us];
+        if (Long.bitCount(checkers) > 1) {
+            // Double check: only the king can move
+            own &= pieceBitboards[us * 6 + KING];
+        }
+        while (own != 0) {
+            int from = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            int piece = squares[from];
+            long targets = legalTargets(from);
+            if (piece % 6 == PAWN && (targets & promotionRank) != 0) {
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    for (int promotion : PROMOTIONS) {
+                        moves[count++] = Move.encode(from, to, piece, squares[to], promotion, 0);
+                        if (tacticalOnly) {
+                            break;
+                        }
+                    }
+                }
+                continue;
+            }
+            if (tacticalOnly) {
+                targets &= enemies;
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                moves[count++] = Move.encode(from, to, piece, squares[to], Move.NO_PIECE, 0);
+            }
         }
 
-        if (!isValidPieceMove) {
-            return false;
+        if (enPassantSquare != -1) {
+            long capturers = Bitboards.PAWN_ATTACKS[1 - us][enPassantSquare] & pieceBitboards[us * 6 + PAWN];
+            while (capturers != 0) {
+                int from = Long.numberOfTrailingZeros(capturers);
+                capturers &= capturers - 1;
+                if (isLegalEnPassant(from)) {
+                    int captured = squares[enPassantSquare + (us == 0 ? -8 : 8)];
+                    moves[count++] = Move.encode(from, enPassantSquare, squares[from], captured, Move.NO_PIECE, Move.EN_PASSANT);
+                }
+            }
+        }
+        if (!tacticalOnly && checkers == 0 && castlingRights != 0) {
+            count = addCastlingMoves(moves, count);
+        }
+        return count;
+    }
+
+    // En passant removes two pieces from a rank, so it is tested by recomputing the attacks on the king
+    private boolean isLegalEnPassant(int from) {
+        if (checkKingSquare < 0) {
+            return true;
         }
+        int capturedSquare = enPassantSquare + (currentPlayer == Player.WHITE ? -8 : 8);
+        long occupied = (allPieces & ~(1L << from) & ~(1L << capturedSquare)) | (1L << enPassantSquare);
+        return (attackersTo(checkKingSquare, opponent(currentPlayer), occupied) & ~(1L << capturedSquare)) == 0;
+    }
 
-        // Check if the move would leave the king in check
-        ChessBoard tempBoard = this.copy();
-        tempBoard.makeMove(move);
-        return !tempBoard.isKingInCheck(currentPlayer);
+    // The king may not castle out of, through or into check; the rook's path only has to be empty
+    private int addCastlingMoves(int[] moves, int count) {
+        int us = currentPlayer.ordinal();
+        int kingSquare = us * 56 + 4;
+        int king = us * 6 + KING;
+        if (squares[kingSquare] != king) {
+            return count;
+        }
+        Player them = opponent(currentPlayer);
+        int kingside = us == 0 ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = us == 0 ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        if ((castlingRights & kingside) != 0 && squares[kingSquare + 3] == us * 6 + ROOK
+                && (allPieces & Bitboards.between(kingSquare, kingSquare + 3)) == 0
+                && attackersTo(kingSquare + 1, them, allPieces) == 0 && attackersTo(kingSquare + 2, them, allPieces) == 0) {
+            moves[count++] = Move.encode(kingSquare, kingSquare + 2, king, EMPTY, Move.NO_PIECE, Move.CASTLING);
+        }
+        if ((castlingRights & queenside) != 0 && squares[kingSquare - 4] == us * 6 + ROOK
+                && (allPieces & Bitboards.between(kingSquare, kingSquare - 4)) == 0
+                && attackersTo(kingSquare - 1, them, allPieces) == 0 && attackersTo(kingSquare - 2, them, allPieces) == 0) {
+            moves[count++] = Move.encode(kingSquare, kingSquare - 2, king, EMPTY, Move.NO_PIECE, Move.CASTLING);
+        }
+        return count;
     }
 
-    private boolean isValidPawnMove(Move move) {
-        int direction = (currentPlayer == Player.WHITE) ? 1 : -1;
-        int startRow = (currentPlayer == Player.WHITE) ? 1 : 6;
+    // Check and pin information for the side to move, computed once per generation
+    private void computeCheckInfo() {
+        long king = pieceBitboards[currentPlayer.ordinal() * 6 + KING];
+        Player them = opponent(currentPlayer);
+        if (king == 0) {
+            checkKingSquare = -1;
+            checkers = 0;
+            pinned = 0;
+            evasionMask = ~0L;
+            return;
+        }
+        checkKingSquare = Long.numberOfTrailingZeros(king);
+        checkers = attackersTo(checkKingSquare, them, allPieces);
+        pinned = pinnedPieces(checkKingSquare, them);
+        // In single check a non-king move must capture the checker or block the line
+        evasionMask = checkers == 0 ? ~0L : checkers | Bitboards.between(checkKingSquare, Long.numberOfTrailingZeros(checkers));
+    }
 
-        // Moving forward
-        if (move.getFromCol() == move.getToCol()) {
-            if (move.getToRow() == move.getFromRow() + direction && board[move.getToRow()][move.getToCol()] == null) {
-                return true;
+    private long legalTargets(int from) {
+        Player them = opponent(currentPlayer);
+        int type = squares[from] % 6;
+        long targets = pseudoTargets(from, type) & ~occupancy[currentPlayer.ordinal()];
+
+        if (type == KING) {
+            long legal = 0L;
+            long occupiedWithoutKing = allPieces & ~(1L << from);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (attackersTo(to, them, occupiedWithoutKing) == 0) {
+                    legal |= 1L << to;
+                }
             }
-            if (move.getFromRow() == startRow && move.getToRow() == move.getFromRow() + 2 * direction &&
-                board[move.getFromRow() + direction][move.getToCol()] == null &&
-                board[move.getToRow()][move.getToCol()] == null) {
-                return true;
+            return legal;
+        }
+
+        if (Long.bitCount(checkers) > 1) {
+            return 0L;
+        }
+        targets &= evasionMask;
+        if ((pinned & (1L << from)) != 0) {
+            targets &= Bitboards.line(checkKingSquare, from);
+        }
+        return targets;
+    }
+
+    private long pseudoTargets(int from, int type) {
+        switch (type) {
+            case PAWN: {
+                int us = currentPlayer.ordinal();
+                int forward = currentPlayer == Player.WHITE ? 8 : -8;
+                int startRow = currentPlayer == Player.WHITE ? 1 : 6;
+                long targets = Bitboards.PAWN_ATTACKS[us][from] & occupancy[1 - us];
+                int to = from + forward;
+                if (to >= 0 && to < 64 && (allPieces & (1L << to)) == 0) {
+                    targets |= 1L << to;
+                    int doublePush = to + forward;
+                    if (from / 8 == startRow && (allPieces & (1L << doublePush)) == 0) {
+                        targets |= 1L << doublePush;
+                    }
+                }
+                return targets;
             }
+            case ROOK: return Bitboards.rookAttacks(from, allPieces);
+            case KNIGHT: return Bitboards.KNIGHT_ATTACKS[from];
+            case BISHOP: return Bitboards.bishopAttacks(from, allPieces);
+            case QUEEN: return Bitboards.queenAttacks(from, allPieces);
+            case KING: return Bitboards.KING_ATTACKS[from];
+            default: return 0L;
         }
-        // Capturing diagonally
-        else if (Math.abs(move.getToCol() - move.getFromCol()) == 1 && move.getToRow() == move.getFromRow() + direction) {
-            return board[move.getToRow()][move.getToCol()] != null &&
-                   board[move.getToRow()][move.getToCol()].getPlayer() != currentPlayer;
+    }
+
+    private long attackersTo(int square, Player by, long occupied) {
+        int base = by.ordinal() * 6;
+        long diagonal = pieceBitboards[base + BISHOP] | pieceBitboards[base + QUEEN];
+        long straight = pieceBitboards[base + ROOK] | pieceBitboards[base + QUEEN];
+        return (Bitboards.PAWN_ATTACKS[1 - by.ordinal()][square] & pieceBitboards[base + PAWN])
+             | (Bitboards.KNIGHT_ATTACKS[square] & pieceBitboards[base + KNIGHT])
+             | (Bitboards.KING_ATTACKS[square] & pieceBitboards[base + KING])
+             | (Bitboards.bishopAttacks(square, occupied) & diagonal)
+             | (Bitboards.rookAttacks(square, occupied) & straight);
+    }
+
+    private long pinnedPieces(int kingSquare, Player them) {
+        int base = them.ordinal() * 6;
+        long snipers = (Bitboards.rookAttacks(kingSquare, 0L) & (pieceBitboards[base + ROOK] | pieceBitboards[base + QUEEN]))
+                     | (Bitboards.bishopAttacks(kingSquare, 0L) & (pieceBitboards[base + BISHOP] | pieceBitboards[base + QUEEN]));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(kingSquare, sniper) & allPieces;
+            if (Long.bitCount(blockers) == 1 && (blockers & occupancy[currentPlayer.ordinal()]) != 0) {
+                pinned |= blockers;
+            }
         }
-        return false;
+        return pinned;
     }
 
-    private boolean isClearPath(Move move) {
-        int rowStep = Integer.compare(move.getToRow(), move.getFromRow());
-        int colStep = Integer.compare(move.getToCol(), move.getFromCol());
-        int row = move.getFromRow() + rowStep;
-        int col = move.getFromCol() + colStep;
+    public static int exchangeValue(ChessPiece.Type type) {
+        return EXCHANGE_VALUES[type.ordinal()];
+    }
 
-        while (row != move.getToRow() || col != move.getToCol()) {
-            if (board[row][col] != null) {
-                return false;
+    // Static exchange evaluation: material the side to move gains from the capture sequence the move starts
+    // on its target square, with both sides always recapturing with their least valuable attacker
+    public int staticExchangeEvaluation(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int captured = Move.captured(move);
+        int attackerType = squares[from] % 6;
+        Player side = currentPlayer;
+        long occupied = allPieces & ~(1L << from);
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            occupied &= ~(1L << (to + (side == Player.WHITE ? -8 : 8)));
+        }
+        long attackers = (attackersTo(to, Player.WHITE, occupied) | attackersTo(to, Player.BLACK, occupied)) & occupied;
+        long diagonalSliders = pieceBitboards[BISHOP] | pieceBitboards[QUEEN] | pieceBitboards[6 + BISHOP] | pieceBitboards[6 + QUEEN];
+        long straightSliders = pieceBitboards[ROOK] | pieceBitboards[QUEEN] | pieceBitboards[6 + ROOK] | pieceBitboards[6 + QUEEN];
+
+        int depth = 0;
+        exchangeGains[0] = captured == EMPTY ? 0 : EXCHANGE_VALUES[captured % 6];
+        if (Move.promotion(move) != Move.NO_PIECE) {
+            // The promoted piece is what stands on the square to be recaptured
+            attackerType = Move.promotion(move);
+            exchangeGains[0] += EXCHANGE_VALUES[attackerType] - EXCHANGE_VALUES[PAWN];
+        }
+        while (true) {
+            depth++;
+            // Speculative score if the piece now on the target square is captured
+            exchangeGains[depth] = EXCHANGE_VALUES[attackerType] - exchangeGains[depth - 1];
+            side = opponent(side);
+            if (Math.max(-exchangeGains[depth - 1], exchangeGains[depth]) < 0) {
+                break;
+            }
+            long sideAttackers = attackers & occupancy[side.ordinal()];
+            if (sideAttackers == 0) {
+                break;
             }
-            row += rowStep;
-            col += colStep;
+            attackerType = -1;
+            for (int type : EXCHANGE_ORDER) {
+                long candidates = sideAttackers & pieceBitboards[side.ordinal() * 6 + type];
+                if (candidates != 0) {
+                    attackerType = type;
+                    occupied &= ~Long.lowestOneBit(candidates);
+                    break;
+                }
+            }
+            // Removing the attacker may uncover sliders behind it
+            attackers |= (Bitboards.bishopAttacks(to, occupied) & diagonalSliders)
+                       | (Bitboards.rookAttacks(to, occupied) & straightSliders);
+            attackers &= occupied;
+        }
+        while (--depth > 0) {
+            exchangeGains[depth - 1] = -Math.max(-exchangeGains[depth - 1], exchangeGains[depth]);
         }
+        return exchangeGains[0];
+    }
 
-        return true;
+    // Answers checkmate, stalemate and draw together, looking for a legal move only once
+    public GameState getGameState() {
+        if (!hasLegalMove()) {
+            return isKingInCheck(currentPlayer) ? GameState.CHECKMATE : GameState.STALEMATE;
+        }
+        return isDraw() ? GameState.DRAW : GameState.IN_PROGRESS;
     }
 
-    public List<Move> getAllValidMoves() {
-        List<Move> validMoves = new ArrayList<>();
-        for (int fromRow = 0; fromRow < 8; fromRow++) {
-            for (int fromCol = 0; fromCol < 8; fromCol++) {
-                if (board[fromRow][fromCol] != null && board[fromRow][fromCol].getPlayer() == currentPlayer) {
-                    for (int toRow = 0; toRow < 8; toRow++) {
-                        for (int toCol = 0; toCol < 8; toCol++) {
-                            Move move = new Move(fromRow, fromCol, toRow, toCol);
-                            if (isValidMove(move)) {
-                                validMoves.add(move);
-                            }
-                        }
-                    }
+    private boolean hasLegalMove() {
+        computeCheckInfo();
+        long own = occupancy[currentPlayer.ordinal()];
+        while (own != 0) {
+            int from = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            if (legalTargets(from) != 0) {
+                return true;
+            }
+        }
+        // En passant can be the only legal move; castling never is, as the king could step instead
+        if (enPassantSquare != -1) {
+            int us = currentPlayer.ordinal();
+            long capturers = Bitboards.PAWN_ATTACKS[1 - us][enPassantSquare] & pieceBitboards[us * 6 + PAWN];
+            while (capturers != 0) {
+                if (isLegalEnPassant(Long.numberOfTrailingZeros(capturers))) {
+                    return true;
                 }
+                capturers &= capturers - 1;
             }
         }
-        return validMoves;
+        return false;
     }
 
     public boolean isGameOver() {
-        return isCheckmate(currentPlayer) || isStalemate(currentPlayer) || isDraw();
+        return getGameState() != GameState.IN_PROGRESS;
     }
 
+    // Only the side to move can be checkmated or stalemated
     public boolean isCheckmate(Player player) {
-        return isKingInCheck(player) && getAllValidMoves().isEmpty();
+        return player == currentPlayer && isKingInCheck(player) && !hasLegalMove();
     }
 
     public boolean isStalemate(Player player) {
-        return !isKingInCheck(player) && getAllValidMoves().isEmpty();
+        return player == currentPlayer && !isKingInCheck(player) && !hasLegalMove();
     }
 
     public boolean isDraw() {
@@ -230,125 +864,83 @@ public class ChessBoard {
     }
 
     private boolean isInsufficientMaterial() {
-        int whiteBishops = 0, whiteKnights = 0, blackBishops = 0, blackKnights = 0;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board[row][col];
-                if (piece != null) {
-                    switch (piece.getType()) {
-                        case PAWN:
-                        case ROOK:
-                        case QUEEN:
-                            return false;
-                        case BISHOP:
-                            if (piece.getPlayer() == Player.WHITE) whiteBishops++;
-                            else blackBishops++;
-                            break;
-                        case KNIGHT:
-                            if (piece.getPlayer() == Player.WHITE) whiteKnights++;
-                            else blackKnights++;
-                            break;
-                    }
-                }
+        for (Player player : Player.values()) {
+            if (getPieceBitboard(ChessPiece.Type.PAWN, player) != 0
+                    || getPieceBitboard(ChessPiece.Type.ROOK, player) != 0
+                    || getPieceBitboard(ChessPiece.Type.QUEEN, player) != 0) {
+                return false;
+            }
+            long minors = getPieceBitboard(ChessPiece.Type.BISHOP, player) | getPieceBitboard(ChessPiece.Type.KNIGHT, player);
+            if (Long.bitCount(minors) > 1) {
+                return false;
             }
         }
-        return (whiteBishops + whiteKnights <= 1) && (blackBishops + blackKnights <= 1);
+        return true;
     }
 
     private boolean isFiftyMoveDraw() {
         return halfMoveClock >= 100; // 50 full moves (100 half-moves)
     }
 
-    // This is a simplified version. A full implementation would require storing board states.
     private boolean isThreefoldRepetition() {
-        // Implement if needed
-        return false;
+        return countRepetitions(2) >= 2;
     }
 
-    public boolean isKingInCheck(Player player) {
-        int[] kingPosition = findKing(player);
-        if (kingPosition == null) {
-            return false; // This shouldn't happen in a valid game state
-        }
+    // True if the position occurred before, for the search to score repeated lines as draws right away
+    public boolean isRepetition() {
+        return countRepetitions(1) >= 1;
+    }
 
-        Player opponent = (player == Player.WHITE) ? Player.BLACK : Player.WHITE;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board[row][col];
-                if (piece != null && piece.getPlayer() == opponent) {
-                    Move move = new Move(row, col, kingPosition[0], kingPosition[1]);
-                    if (isValidMove(move)) {
-                        return true;
-                    }
-                }
+    // Counts earlier occurrences of the current position, up to the limit. Only positions with the same side
+    // to move since the last capture or pawn move can repeat, so at most halfMoveClock entries are scanned.
+    private int countRepetitions(int limit) {
+        int count = 0;
+        int oldest = Math.max(0, historySize - halfMoveClock);
+        for (int i = historySize - 4; i >= oldest; i -= 2) {
+            if (hashHistory[i] == hashKey && ++count >= limit) {
+                break;
             }
         }
-        return false;
+        return count;
     }
 
-    private int[] findKing(Player player) {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board[row][col];
-                if (piece != null && piece.getType() == ChessPiece.Type.KING && piece.getPlayer() == player) {
-                    return new int[]{row, col};
-                }
-            }
+    public boolean isKingInCheck(Player player) {
+        long king = pieceBitboards[player.ordinal() * 6 + KING];
+        if (king == 0) {
+            return false; // This shouldn't happen in a valid game state
         }
-        return null;
+        return attackersTo(Long.numberOfTrailingZeros(king), opponent(player), allPieces) != 0;
+    }
+
+    public boolean isSquareAttacked(int row, int col, Player by) {
+        return attackersTo(row * 8 + col, by, allPieces) != 0;
     }
 
     public Player getCurrentPlayer() {
         return currentPlayer;
     }
 
+    public long getHashKey() {
+        return hashKey;
+    }
+
+    public long getPawnHashKey() {
+        return pawnHashKey;
+    }
+
     public int getMoveCount() {
         return moveCount;
     }
 
     public ChessBoard copy() {
-        ChessBoard newBoard = new ChessBoard();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (this.board[i][j] != null) {
-                    newBoard.board[i][j] = new ChessPiece(this.board[i][j].getType(), this.board[i][j].getPlayer());
-                } else {
-                    newBoard.board[i][j] = null;
-                }
-            }
-        }
-        newBoard.currentPlayer = this.currentPlayer;
-        newBoard.moveCount = this.moveCount;
-        newBoard.halfMoveClock = this.halfMoveClock;
-        return newBoard;
+        return new ChessBoard(this);
     }
 
     public boolean undoLastMove() {
-        if (moveHistory.isEmpty()) {
+        if (historySize == 0) {
             return false;
         }
-        
-        Move lastMove = moveHistory.remove(moveHistory.size() - 1);
-        ChessPiece capturedPiece = capturedPieces.remove(capturedPieces.size() - 1);
-        
-        ChessPiece movingPiece = board[lastMove.getToRow()][lastMove.getToCol()];
-        board[lastMove.getFromRow()][lastMove.getFromCol()] = movingPiece;
-        board[lastMove.getToRow()][lastMove.getToCol()] = capturedPiece;
-        
-        if (currentPlayer == Player.WHITE) {
-            moveCount--;
-        }
-        
-        currentPlayer = (currentPlayer == Player.WHITE) ? Player.BLACK : Player.WHITE;
-        
-        // Adjust halfMoveClock if necessary
-        if (movingPiece.getType() == ChessPiece.Type.PAWN || capturedPiece != null) {
-            halfMoveClock++;
-        } else {
-            halfMoveClock--;
-        }
-        
+        unmakeMove();
         return true;
     }
 }
-
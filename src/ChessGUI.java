@@ -17,12 +17,16 @@ public class ChessGUI {
     private Label statusLabel;
     private Button aiMoveButton;
     private Button undoButton;
+    private Button stopButton;
+    // Token of the AI search in progress, or null when the AI is idle
+    private CancellationToken aiSearchToken;
 
 
     public ChessGUI(Stage stage) {
         this.stage = stage;
         this.chessBoard = new ChessBoard();
         this.chessAI = new ChessAI();
+        this.chessAI.setRootNoise(5); // Small random variation so the AI does not repeat every game
         createUI();
     }
 
@@ -47,7 +51,11 @@ public class ChessGUI {
         undoButton = new Button("Undo");
         undoButton.setOnAction(e -> undoMove());
 
-        HBox buttonBox = new HBox(10, newGameButton, aiMoveButton, undoButton);
+        stopButton = new Button("Move Now");
+        stopButton.setDisable(true);
+        stopButton.setOnAction(e -> stopAISearch());
+
+        HBox buttonBox = new HBox(10, newGameButton, aiMoveButton, undoButton, stopButton);
 
         root.getChildren().addAll(titleLabel, boardGrid, statusLabel, buttonBox);
 
@@ -86,8 +94,9 @@ public class ChessGUI {
     private void handleSquareClick(int row, int col) {
         if (chessBoard.selectSquare(row, col)) {
             updateBoardUI();
-            if (chessBoard.isGameOver()) {
-                showGameOverDialog();
+            ChessBoard.GameState state = chessBoard.getGameState();
+            if (state != ChessBoard.GameState.IN_PROGRESS) {
+                showGameOverDialog(state);
             } else if (chessBoard.getCurrentPlayer() == ChessBoard.Player.BLACK) {
                 makeAIMove();
             }
@@ -98,32 +107,62 @@ public class ChessGUI {
     private void makeAIMove() {
         aiMoveButton.setDisable(true);
         undoButton.setDisable(true);
+        stopButton.setDisable(false);
         statusLabel.setText("AI is thinking...");
 
+        CancellationToken token = new CancellationToken();
+        aiSearchToken = token;
         Task<Move> aiTask = new Task<>() {
             @Override
             protected Move call() {
-                return chessAI.getBestMove(chessBoard);
+                return chessAI.getBestMove(chessBoard, token);
             }
         };
 
         aiTask.setOnSucceeded(event -> {
+            if (aiSearchToken != token) {
+                return; // The search was abandoned by a new game
+            }
+            aiSearchToken = null;
             Move aiMove = aiTask.getValue();
-            chessBoard.makeMove(aiMove);
+            if (aiMove != null) {
+                chessBoard.makeMove(aiMove);
+            }
             updateBoardUI();
-            if (chessBoard.isGameOver()) {
-                showGameOverDialog();
+            ChessBoard.GameState state = chessBoard.getGameState();
+            if (state != ChessBoard.GameState.IN_PROGRESS) {
+                showGameOverDialog(state);
             }
             updateStatusLabel();
-            aiMoveButton.setDisable(false);
-            undoButton.setDisable(false);
+            setAIIdle();
         });
 
-        new Thread(aiTask).start();
+        Thread aiThread = new Thread(aiTask, "chess-ai");
+        aiThread.setDaemon(true);
+        aiThread.start();
+    }
+
+    // Ends the AI search early; it still plays the best move found so far
+    private void stopAISearch() {
+        if (aiSearchToken != null) {
+            aiSearchToken.cancel();
+        }
+    }
+
+    private void setAIIdle() {
+        aiMoveButton.setDisable(false);
+        undoButton.setDisable(false);
+        stopButton.setDisable(true);
     }
 
     private void newGame() {
+        if (aiSearchToken != null) {
+            aiSearchToken.cancel();
+            aiSearchToken = null;
+            setAIIdle();
+        }
         chessBoard.resetBoard();
+        chessAI.newGame();
         updateBoardUI();
         updateStatusLabel();
     }
@@ -133,12 +172,20 @@ public class ChessGUI {
         statusLabel.setText(playerTurn + "'s turn");
     }
 
-    private void showGameOverDialog() {
-        String winner = chessBoard.getCurrentPlayer() == ChessBoard.Player.WHITE ? "Black" : "White";
+    private void showGameOverDialog(ChessBoard.GameState state) {
+        String result;
+        if (state == ChessBoard.GameState.CHECKMATE) {
+            String winner = chessBoard.getCurrentPlayer() == ChessBoard.Player.WHITE ? "Black" : "White";
+            result = winner + " wins!";
+        } else if (state == ChessBoard.GameState.STALEMATE) {
+            result = "Draw by stalemate.";
+        } else {
+            result = "Draw.";
+        }
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("Game Over");
         alert.setHeaderText(null);
-        alert.setContentText("Game Over! " + winner + " wins!");
+        alert.setContentText("Game Over! " + result);
         alert.showAndWait();
     }
 
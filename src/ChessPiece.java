@@ -1,6 +1,16 @@
 public class ChessPiece {
     public enum Type { PAWN, ROOK, KNIGHT, BISHOP, QUEEN, KING };
 
+    // Pieces are immutable, so the board hands out one shared instance per type and color
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    static {
+        for (ChessBoard.Player player : ChessBoard.Player.values()) {
+            for (Type type : Type.values()) {
+                PIECES[indexOf(type, player)] = new ChessPiece(type, player);
+            }
+        }
+    }
+
     private Type type;
     private ChessBoard.Player player;
 
@@ -9,6 +19,22 @@ public class ChessPiece {
         this.player = player;
     }
 
+    public static ChessPiece of(Type type, ChessBoard.Player player) {
+        return PIECES[indexOf(type, player)];
+    }
+
+    public static ChessPiece fromIndex(int index) {
+        return PIECES[index];
+    }
+
+    public static int indexOf(Type type, ChessBoard.Player player) {
+        return player.ordinal() * 6 + type.ordinal();
+    }
+
+    public int getIndex() {
+        return indexOf(type, player);
+    }
+
     public Type getType() {
         return type;
     }
@@ -0,0 +1,58 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Direct-mapped, always-replace cache of static evaluations keyed by the full position hash.
+// Like PawnHashTable each slot is one long (upper 32 key bits and the score), so the
+// cache is shared by search threads without locking.
+public class EvaluationCache {
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private final long[] entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EvaluationCache(int sizeMb) {
+        long slots = Math.max(1, (long) sizeMb * 1024 * 1024 / Long.BYTES);
+        entries = new long[(int) Long.highestOneBit(Math.min(slots, 1 << 30))];
+        mask = entries.length - 1;
+    }
+
+    public int probe(long key) {
+        long entry = entries[(int) key & mask];
+        if ((entry & 0xFFFFFFFF00000000L) != (key & 0xFFFFFFFF00000000L) || entry == 0) {
+            misses.increment();
+            return MISS;
+        }
+        hits.increment();
+        return (int) entry;
+    }
+
+    public void store(long key, int score) {
+        entries[(int) key & mask] = (key & 0xFFFFFFFF00000000L) | (score & 0xFFFFFFFFL);
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+        resetStatistics();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+}
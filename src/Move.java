@@ -1,19 +1,94 @@
 public class Move {
+    // Packed int encoding used inside the engine:
+    // from (bits 0-5) | to (6-11) | moving piece index (12-15) | captured piece index + 1 (16-19)
+    // | promotion type ordinal + 1 (20-22) | flags (23-25). 0 is never a legal move.
+    public static final int NONE = 0;
+    public static final int NO_PIECE = -1;
+    // Flags for the moves that change more than the from and to squares
+    public static final int CASTLING = 1;
+    public static final int EN_PASSANT = 2;
+
     private int fromRow;
     private int fromCol;
     private int toRow;
     private int toCol;
+    private ChessPiece.Type promotion; // null unless a pawn promotes; the board promotes to a queen by default
 
     public Move(int fromRow, int fromCol, int toRow, int toCol) {
+        this(fromRow, fromCol, toRow, toCol, null);
+    }
+
+    public Move(int fromRow, int fromCol, int toRow, int toCol, ChessPiece.Type promotion) {
         this.fromRow = fromRow;
         this.fromCol = fromCol;
         this.toRow = toRow;
         this.toCol = toCol;
+        this.promotion = promotion;
     }
 
     public int getFromRow() { return fromRow; }
     public int getFromCol() { return fromCol; }
     public int getToRow() { return toRow; }
     public int getToCol() { return toCol; }
-}
+    public ChessPiece.Type getPromotion() { return promotion; }
+
+    // Coordinate notation, e.g. e2e4 or e7e8q
+    @Override
+    public String toString() {
+        StringBuilder notation = new StringBuilder(5)
+            .append((char) ('a' + fromCol)).append((char) ('1' + fromRow))
+            .append((char) ('a' + toCol)).append((char) ('1' + toRow));
+        if (promotion != null) {
+            notation.append(promotion == ChessPiece.Type.KNIGHT ? 'n' : Character.toLowerCase(promotion.name().charAt(0)));
+        }
+        return notation.toString();
+    }
+
+    // Parses coordinate notation as written by toString()
+    public static Move fromString(String notation) {
+        if (notation.length() != 4 && notation.length() != 5) {
+            throw new IllegalArgumentException("Invalid move: " + notation);
+        }
+        int fromCol = notation.charAt(0) - 'a';
+        int fromRow = notation.charAt(1) - '1';
+        int toCol = notation.charAt(2) - 'a';
+        int toRow = notation.charAt(3) - '1';
+        if ((fromCol | fromRow | toCol | toRow) < 0 || Math.max(Math.max(fromCol, fromRow), Math.max(toCol, toRow)) > 7) {
+            throw new IllegalArgumentException("Invalid move: " + notation);
+        }
+        ChessPiece.Type promotion = null;
+        if (notation.length() == 5) {
+            switch (notation.charAt(4)) {
+                case 'q': promotion = ChessPiece.Type.QUEEN; break;
+                case 'r': promotion = ChessPiece.Type.ROOK; break;
+                case 'b': promotion = ChessPiece.Type.BISHOP; break;
+                case 'n': promotion = ChessPiece.Type.KNIGHT; break;
+                default: throw new IllegalArgumentException("Invalid promotion: " + notation);
+            }
+        }
+        return new Move(fromRow, fromCol, toRow, toCol, promotion);
+    }
 
+    public static int encode(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from | to << 6 | piece << 12 | (captured + 1) << 16 | (promotion + 1) << 20 | flags << 23;
+    }
+
+    public static int from(int move) { return move & 63; }
+    public static int to(int move) { return (move >>> 6) & 63; }
+    public static int piece(int move) { return (move >>> 12) & 15; }
+    // Piece index of the captured piece, or NO_PIECE
+    public static int captured(int move) { return ((move >>> 16) & 15) - 1; }
+    // ChessPiece.Type ordinal of the promotion piece, or NO_PIECE
+    public static int promotion(int move) { return ((move >>> 20) & 7) - 1; }
+    public static int flags(int move) { return (move >>> 23) & 7; }
+
+    public static boolean isCapture(int move) {
+        return (move & 0xF0000) != 0;
+    }
+
+    public static Move fromInt(int move) {
+        int promotion = promotion(move);
+        return new Move(from(move) / 8, from(move) % 8, to(move) / 8, to(move) % 8,
+                promotion == NO_PIECE ? null : ChessPiece.Type.values()[promotion]);
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+// Opening book in a Polyglot-style binary file: 16-byte big-endian entries sorted by position key, each
+//   key (8 bytes) | move (2) | weight (2) | unused (4)
+// The key is this engine's Zobrist key, so Polyglot books made for other engines do not match. The move
+// packs from (bits 0-5) | to (6-11) | promotion type ordinal + 1 (12-14). The file is memory-mapped and
+// binary-searched in place, so a lookup reads a few entries straight from the page cache without copying.
+//
+// java OpeningBook build <lines.txt> <book.bin>
+//   builds a book from lines of coordinate moves played from the start position, e.g. "e2e4 e7e5 g1f3";
+//   each time a line plays a move in a position adds one to that move's weight
+public class OpeningBook implements Closeable {
+    private static final int ENTRY_SIZE = 16;
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+
+    public OpeningBook(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Not an opening book: " + path);
+        }
+        entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        entryCount = (int) (size / ENTRY_SIZE);
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    // Picks one of the book moves for the position with probability proportional to its weight,
+    // or returns null when the position is not in the book
+    public Move probe(ChessBoard board, Random random) {
+        long key = board.getHashKey();
+        int first = firstEntry(key);
+        int totalWeight = 0;
+        for (int i = first; i < entryCount && keyAt(i) == key; i++) {
+            totalWeight += weightAt(i);
+        }
+        if (totalWeight == 0) {
+            return null;
+        }
+        int pick = random.nextInt(totalWeight);
+        for (int i = first; ; i++) {
+            pick -= weightAt(i);
+            if (pick < 0) {
+                Move move = decodeMove(entries.getShort(i * ENTRY_SIZE + 8));
+                // A key collision could name a move that is illegal here
+                return board.isValidMove(move) ? move : null;
+            }
+        }
+    }
+
+    // Index of the first entry with the key, or of the first greater one
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(index * ENTRY_SIZE + 10) & 0xFFFF;
+    }
+
+    private static Move decodeMove(short encoded) {
+        int from = encoded & 63;
+        int to = (encoded >>> 6) & 63;
+        int promotion = ((encoded >>> 12) & 7) - 1;
+        return new Move(from / 8, from % 8, to / 8, to % 8,
+                promotion < 0 ? null : ChessPiece.Type.values()[promotion]);
+    }
+
+    private static int encodeMove(Move move) {
+        int promotion = move.getPromotion() == null ? 0 : move.getPromotion().ordinal() + 1;
+        return (move.getFromRow() * 8 + move.getFromCol()) | (move.getToRow() * 8 + move.getToCol()) << 6 | promotion << 12;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Plays every line of coordinate moves from the start position and writes the weighted moves seen in each
+    // position as a sorted book. Returns the number of entries written.
+    public static int build(Path lines, Path book) throws IOException {
+        Map<Long, Map<Integer, Integer>> positions = new TreeMap<>(Long::compareUnsigned);
+        ChessBoard board = new ChessBoard();
+        try (BufferedReader reader = Files.newBufferedReader(lines, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                board.resetBoard();
+                for (String notation : line.split("\\s+")) {
+                    Move move;
+                    try {
+                        move = Move.fromString(notation);
+                    } catch (IllegalArgumentException e) {
+                        move = null;
+                    }
+                    if (move == null || !board.isValidMove(move)) {
+                        System.err.println("Line " + lineNumber + ": illegal move " + notation + ", rest of the line ignored");
+                        break;
+                    }
+                    positions.computeIfAbsent(board.getHashKey(), k -> new TreeMap<>())
+                             .merge(encodeMove(move), 1, Integer::sum);
+                    board.makeMove(move);
+                }
+            }
+        }
+
+        int count = 0;
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        try (FileChannel out = FileChannel.open(book, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<Long, Map<Integer, Integer>> position : positions.entrySet()) {
+                for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                    entry.clear();
+                    entry.putLong(position.getKey())
+                         .putShort((short) (int) move.getKey())
+                         .putShort((short) Math.min(move.getValue(), MAX_WEIGHT))
+                         .putInt(0)
+                         .flip();
+                    while (entry.hasRemaining()) {
+                        out.write(entry);
+                    }
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !args[0].equals("build")) {
+            System.err.println("Usage: java OpeningBook build <lines.txt> <book.bin>");
+            System.exit(2);
+        }
+        int count = build(Paths.get(args[1]), Paths.get(args[2]));
+        System.out.println(count + " entries written to " + args[2]);
+    }
+}
@@ -0,0 +1,26 @@
+// Direct-mapped cache of pawn structure scores keyed by the board's pawn-only Zobrist key.
+// Each slot is one long: the upper 32 bits of the key and the score, so a slot is read and written
+// in a single access and the table can be shared by search threads without locking.
+public class PawnHashTable {
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private final long[] entries;
+    private final int mask;
+
+    public PawnHashTable(int sizeBits) {
+        entries = new long[1 << sizeBits];
+        mask = entries.length - 1;
+    }
+
+    public int probe(long pawnKey) {
+        long entry = entries[(int) pawnKey & mask];
+        if ((entry & 0xFFFFFFFF00000000L) != (pawnKey & 0xFFFFFFFF00000000L) || entry == 0) {
+            return MISS;
+        }
+        return (int) entry;
+    }
+
+    public void store(long pawnKey, int score) {
+        entries[(int) pawnKey & mask] = (pawnKey & 0xFFFFFFFF00000000L) | (score & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+// Counts the leaf nodes of the legal move tree to check the move generator against published numbers,
+// and measures its speed while doing so. Runs headless:
+//   java Perft                       all reference positions; exits with status 1 on any mismatch
+//   java Perft <depth> [fen]         node count for one position (the start position by default)
+//   java Perft divide <depth> [fen]  node count below each root move, for tracking down a mismatch
+public class Perft {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // FEN, search depth and expected node counts from depth 1 up
+    private static final Object[][] REFERENCE_POSITIONS = {
+        {START_FEN, 6, new long[] {20, 400, 8902, 197281, 4865609, 119060324}},
+        {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 5,
+            new long[] {48, 2039, 97862, 4085603, 193690690}},
+        {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 6, new long[] {14, 191, 2812, 43238, 674624, 11030083}},
+        {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 5,
+            new long[] {6, 264, 9467, 422333, 15833292}},
+        {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 5, new long[] {44, 1486, 62379, 2103487, 89941194}},
+        {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 5,
+            new long[] {46, 2079, 89890, 3894594, 164075551}},
+        // En passant fields no double push can have produced (wrong rank, no enemy pawn in front) must be
+        // ignored, so these count the same as with "-"
+        {"k7/8/8/8/8/8/3PP3/K7 w - e3 0 1", 5, new long[] {7, 21, 162, 971, 8130}},
+        {"k7/8/8/3P4/8/8/8/K7 w - e6 0 1", 5, new long[] {4, 12, 75, 418, 2875}},
+        {"k7/8/8/8/3p4/8/8/K7 b - e3 0 1", 5, new long[] {4, 12, 75, 418, 2875}},
+    };
+
+    private final ChessBoard board;
+    // One move buffer per remaining depth so counting never allocates
+    private final int[][] moveStack = new int[ChessBoard.MAX_MOVES][];
+
+    public Perft(ChessBoard board) {
+        this.board = board;
+    }
+
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (moveStack[depth] == null) {
+            moveStack[depth] = new int[ChessBoard.MAX_MOVES];
+        }
+        int[] moves = moveStack[depth];
+        int count = board.generateMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Prints the node count below each root move and returns the total
+    public long divide(int depth) {
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            long nodes = perft(depth - 1);
+            board.unmakeMove();
+            System.out.println(Move.fromInt(moves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.exit(runReferencePositions() ? 0 : 1);
+        }
+        boolean divide = args[0].equals("divide");
+        int argument = divide ? 1 : 0;
+        if (args.length <= argument) {
+            System.err.println("Usage: java Perft [divide] <depth> [fen]");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[argument]);
+        ChessBoard board = new ChessBoard();
+        if (args.length > argument + 1) {
+            board.setFen(String.join(" ", Arrays.copyOfRange(args, argument + 1, args.length)));
+        }
+        Perft perft = new Perft(board);
+        long start = System.nanoTime();
+        long nodes = divide ? perft.divide(depth) : perft.perft(depth);
+        report("depth " + depth, nodes, System.nanoTime() - start);
+    }
+
+    private static boolean runReferencePositions() {
+        boolean passed = true;
+        for (Object[] position : REFERENCE_POSITIONS) {
+            String fen = (String) position[0];
+            int maxDepth = (Integer) position[1];
+            long[] expected = (long[]) position[2];
+            ChessBoard board = new ChessBoard();
+            board.setFen(fen);
+            Perft perft = new Perft(board);
+            System.out.println(fen);
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                long start = System.nanoTime();
+                long nodes = perft.perft(depth);
+                long elapsed = System.nanoTime() - start;
+                boolean correct = nodes == expected[depth - 1];
+                passed &= correct;
+                report((correct ? "  ok   " : "  FAIL ") + "depth " + depth
+                        + (correct ? "" : " (expected " + expected[depth - 1] + ")"), nodes, elapsed);
+            }
+        }
+        System.out.println(passed ? "All positions match" : "Mismatches found");
+        return passed;
+    }
+
+    private static void report(String label, long nodes, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "%s: %d nodes in %.3f s, %.0f nodes/s",
+                label, nodes, seconds, nodes / seconds));
+    }
+}
@@ -0,0 +1,122 @@
+public final class PieceSquareTables {
+    // Material values in ChessPiece.Type order
+    public static final int[] MATERIAL = {100, 500, 320, 330, 900, 20000};
+
+    // Game phase weight per type; the sum over all pieces is PHASE_TOTAL at the start and 0 with bare kings and pawns
+    public static final int[] PHASE_WEIGHTS = {0, 2, 1, 1, 4, 0};
+    public static final int PHASE_TOTAL = 24;
+
+    // Midgame and endgame bonus per piece index (player * 6 + type) and square (row * 8 + col),
+    // filled in once from the tables below
+    public static final int[][] MIDGAME = new int[12][64];
+    public static final int[][] ENDGAME = new int[12][64];
+
+    // Tables are drawn from White's side: the first row is White's eighth rank
+    private static final int[][] PAWN_MIDGAME_TABLE = {
+        { 0,  0,  0,  0,  0,  0,  0,  0},
+        {50, 50, 50, 50, 50, 50, 50, 50},
+        {10, 10, 20, 30, 30, 20, 10, 10},
+        { 5,  5, 10, 25, 25, 10,  5,  5},
+        { 0,  0,  0, 20, 20,  0,  0,  0},
+        { 5, -5,-10,  0,  0,-10, -5,  5},
+        { 5, 10, 10,-20,-20, 10, 10,  5},
+        { 0,  0,  0,  0,  0,  0,  0,  0}
+    };
+
+    private static final int[][] ROOK_TABLE = {
+        { 0,  0,  0,  0,  0,  0,  0,  0},
+        { 5, 10, 10, 10, 10, 10, 10,  5},
+        {-5,  0,  0,  0,  0,  0,  0, -5},
+        {-5,  0,  0,  0,  0,  0,  0, -5},
+        {-5,  0,  0,  0,  0,  0,  0, -5},
+        {-5,  0,  0,  0,  0,  0,  0, -5},
+        {-5,  0,  0,  0,  0,  0,  0, -5},
+        { 0,  0,  0,  5,  5,  0,  0,  0}
+    };
+
+    private static final int[][] KNIGHT_TABLE = {
+        {-50,-40,-30,-30,-30,-30,-40,-50},
+        {-40,-20,  0,  0,  0,  0,-20,-40},
+        {-30,  0, 10, 15, 15, 10,  0,-30},
+        {-30,  5, 15, 20, 20, 15,  5,-30},
+        {-30,  0, 15, 20, 20, 15,  0,-30},
+        {-30,  5, 10, 15, 15, 10,  5,-30},
+        {-40,-20,  0,  5,  5,  0,-20,-40},
+        {-50,-40,-30,-30,-30,-30,-40,-50}
+    };
+
+    private static final int[][] BISHOP_TABLE = {
+        {-20,-10,-10,-10,-10,-10,-10,-20},
+        {-10,  0,  0,  0,  0,  0,  0,-10},
+        {-10,  0,  5, 10, 10,  5,  0,-10},
+        {-10,  5,  5, 10, 10,  5,  5,-10},
+        {-10,  0, 10, 10, 10, 10,  0,-10},
+        {-10, 10, 10, 10, 10, 10, 10,-10},
+        {-10,  5,  0,  0,  0,  0,  5,-10},
+        {-20,-10,-10,-10,-10,-10,-10,-20}
+    };
+
+    private static final int[][] QUEEN_TABLE = {
+        {-20,-10,-10, -5, -5,-10,-10,-20},
+        {-10,  0,  0,  0,  0,  0,  0,-10},
+        {-10,  0,  5,  5,  5,  5,  0,-10},
+        { -5,  0,  5,  5,  5,  5,  0, -5},
+        {  0,  0,  5,  5,  5,  5,  0, -5},
+        {-10,  5,  5,  5,  5,  5,  0,-10},
+        {-10,  0,  5,  0,  0,  0,  0,-10},
+        {-20,-10,-10, -5, -5,-10,-10,-20}
+    };
+
+    private static final int[][] KING_MIDGAME_TABLE = {
+        {-30,-40,-40,-50,-50,-40,-40,-30},
+        {-30,-40,-40,-50,-50,-40,-40,-30},
+        {-30,-40,-40,-50,-50,-40,-40,-30},
+        {-30,-40,-40,-50,-50,-40,-40,-30},
+        {-20,-30,-30,-40,-40,-30,-30,-20},
+        {-10,-20,-20,-20,-20,-20,-20,-10},
+        { 20, 20,  0,  0,  0,  0, 20, 20},
+        { 20, 30, 10,  0,  0, 10, 30, 20}
+    };
+
+    // In the endgame passed pawns are worth pushing and the king belongs in the centre
+    private static final int[][] PAWN_ENDGAME_TABLE = {
+        { 0,  0,  0,  0,  0,  0,  0,  0},
+        {80, 80, 80, 80, 80, 80, 80, 80},
+        {50, 50, 50, 50, 50, 50, 50, 50},
+        {30, 30, 30, 30, 30, 30, 30, 30},
+        {20, 20, 20, 20, 20, 20, 20, 20},
+        {10, 10, 10, 10, 10, 10, 10, 10},
+        {10, 10, 10, 10, 10, 10, 10, 10},
+        { 0,  0,  0,  0,  0,  0,  0,  0}
+    };
+
+    private static final int[][] KING_ENDGAME_TABLE = {
+        {-50,-40,-30,-20,-20,-30,-40,-50},
+        {-30,-20,-10,  0,  0,-10,-20,-30},
+        {-30,-10, 20, 30, 30, 20,-10,-30},
+        {-30,-10, 30, 40, 40, 30,-10,-30},
+        {-30,-10, 30, 40, 40, 30,-10,-30},
+        {-30,-10, 20, 30, 30, 20,-10,-30},
+        {-30,-30,  0,  0,  0,  0,-30,-30},
+        {-50,-30,-30,-30,-30,-30,-30,-50}
+    };
+
+    static {
+        fill(MIDGAME, PAWN_MIDGAME_TABLE, ROOK_TABLE, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE, KING_MIDGAME_TABLE);
+        fill(ENDGAME, PAWN_ENDGAME_TABLE, ROOK_TABLE, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE, KING_ENDGAME_TABLE);
+    }
+
+    private static void fill(int[][] values, int[][]... tables) {
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < 64; square++) {
+                int row = square / 8;
+                int col = square % 8;
+                values[type][square] = tables[type][7 - row][col];
+                values[6 + type][square] = tables[type][row][col];
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Streams positions from a FEN or EPD file, one per line, into a board the caller reuses. The file is read
+// through one direct buffer and each line is copied into one growable character buffer that ChessBoard.setFen
+// parses in place, so reading millions of lines creates no garbage.
+public class PositionFileReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final LineBuffer line = new LineBuffer();
+    private long lineNumber;
+
+    public PositionFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip();
+    }
+
+    // Loads the next position into the board, skipping blank lines and lines starting with '#'.
+    // Returns false at the end of the file. A malformed line throws IllegalArgumentException naming
+    // the line number; reading can go on with the next call.
+    public boolean next(ChessBoard board) throws IOException {
+        while (readLine()) {
+            if (line.length() == 0 || line.charAt(0) == '#') {
+                continue;
+            }
+            try {
+                board.setFen(line);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // The last line loaded, valid until the next call; in EPD the operations such as bm or id follow the position
+    public CharSequence getLine() {
+        return line;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    private boolean readLine() throws IOException {
+        line.length = 0;
+        boolean readAny = false;
+        while (buffer.hasRemaining() || fillBuffer()) {
+            readAny = true;
+            byte b = buffer.get();
+            if (b == '\n') {
+                break;
+            }
+            line.append((char) (b & 0xFF));
+        }
+        if (!readAny) {
+            return false;
+        }
+        lineNumber++;
+        while (line.length > 0 && Character.isWhitespace(line.chars[line.length - 1])) {
+            line.length--;
+        }
+        return true;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static final class LineBuffer implements CharSequence {
+        private char[] chars = new char[128];
+        private int length;
+
+        void append(char c) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = c;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
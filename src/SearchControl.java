@@ -0,0 +1,47 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Limits and stop signal shared by every thread taking part in one search
+class SearchControl {
+    private final long startTime;
+    private final long nodeLimit;
+    private final long deadline;
+    private final CancellationToken cancellationToken;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean stopped;
+
+    SearchControl(SearchLimits limits, CancellationToken cancellationToken, long startTime) {
+        this.startTime = startTime;
+        this.nodeLimit = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+        this.deadline = limits.getTimeMillis() > 0 ? startTime + limits.getTimeMillis() : Long.MAX_VALUE;
+        this.cancellationToken = cancellationToken;
+    }
+
+    // Adds a worker's node batch to the total and re-evaluates every limit
+    boolean addNodesAndCheck(long batch) {
+        long total = nodes.addAndGet(batch);
+        if (total >= nodeLimit || cancellationToken.isCancelled() || System.currentTimeMillis() >= deadline) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    long getElapsedMillis() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    long getNodes() {
+        return nodes.get();
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    void stop() {
+        stopped = true;
+    }
+}
@@ -0,0 +1,26 @@
+public class SearchLimits {
+    public static final int MAX_DEPTH = 64;
+
+    private final int depth;
+    private final long timeMillis;
+    private final long nodes;
+
+    // A limit of 0 means unbounded; depth is always capped at MAX_DEPTH
+    public SearchLimits(int depth, long timeMillis, long nodes) {
+        this.depth = depth <= 0 ? MAX_DEPTH : Math.min(depth, MAX_DEPTH);
+        this.timeMillis = timeMillis;
+        this.nodes = nodes;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits moveTime(long timeMillis) {
+        return new SearchLimits(0, timeMillis, 0);
+    }
+
+    public int getDepth() { return depth; }
+    public long getTimeMillis() { return timeMillis; }
+    public long getNodes() { return nodes; }
+}
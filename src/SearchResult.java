@@ -0,0 +1,32 @@
+public class SearchResult {
+    private final Move bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+
+    public SearchResult(Move bestMove, int score, int depth, long nodes, long timeMillis) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+
+    public Move getBestMove() { return bestMove; }
+    // Score in centipawns from the point of view of the side to move
+    public int getScore() { return score; }
+    public int getDepth() { return depth; }
+    public long getNodes() { return nodes; }
+    public long getTimeMillis() { return timeMillis; }
+
+    // Moves until mate, negative when the side to move is getting mated, or 0 when the score is not a mate
+    public int getMateMoves() {
+        int matePlies = SearchWorker.MATE_SCORE - Math.abs(score);
+        if (matePlies > SearchWorker.MAX_PLY) {
+            return 0;
+        }
+        int mateMoves = (matePlies + 1) / 2;
+        return score > 0 ? mateMoves : -mateMoves;
+    }
+}
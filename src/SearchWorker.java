@@ -0,0 +1,381 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// One search thread: owns its board and counters, shares the transposition table and limits with the others
+class SearchWorker {
+    static final int INFINITY = 1000000;
+    static final int MATE_SCORE = 10000;
+    // Nodes are reported to the shared control, and limits checked, once every CHECK_INTERVAL + 1 nodes
+    private static final int CHECK_INTERVAL = 1023;
+    static final int MAX_PLY = 128;
+    // Scores beyond this are mates; they are stored in the transposition table relative to the node, not the root
+    private static final int MATE_BOUND = MATE_SCORE - 2 * MAX_PLY;
+    // Ordering scores: hash move, then captures by MVV-LVA, then killers, then quiet moves by history
+    private static final int HASH_MOVE_SCORE = 1000000;
+    private static final int CAPTURE_SCORE = 100000;
+    private static final int FIRST_KILLER_SCORE = 90000;
+    private static final int SECOND_KILLER_SCORE = 80000;
+    private static final int HISTORY_LIMIT = 50000;
+    // A capture is skipped in quiescence when even winning the victim plus this margin cannot reach alpha
+    private static final int DELTA_MARGIN = 200;
+    // Victim and attacker weights for MVV-LVA, in ChessPiece.Type order
+    private static final int[] ORDER_VALUES = {1, 5, 3, 3, 9, 10};
+
+    private final ChessAI ai;
+    private final TranspositionTable transpositionTable;
+    private final SearchControl control;
+    private final ChessBoard board;
+    private final Random random;
+    // Root scores are perturbed by up to this many centipawns either way; 0 keeps the search deterministic
+    private final int rootNoise;
+    private final int[][] killerMoves = new int[MAX_PLY][2];
+    private final int[][] historyScores = new int[12][64];
+    // Move lists per ply, filled by the generator in place so the search loop never allocates
+    private final int[][] moveStack = new int[MAX_PLY][ChessBoard.MAX_MOVES];
+    private final int[] orderScores = new int[ChessBoard.MAX_MOVES];
+    private long nodes;
+    private long unreportedNodes;
+    // ROOT_SPLIT: one worker per pool thread for the whole search, so its move stack is allocated once and its
+    // killer and history tables carry over between iterations; each task unmakes back to the root position.
+    // Held here rather than in the pool threads, so the workers go away with the search.
+    private final Map<Thread, SearchWorker> splitWorkers = new ConcurrentHashMap<>();
+
+    SearchWorker(ChessAI ai, TranspositionTable transpositionTable, SearchControl control, ChessBoard board, Random random) {
+        this.ai = ai;
+        this.transpositionTable = transpositionTable;
+        this.control = control;
+        this.board = board;
+        this.random = random;
+        this.rootNoise = ai.getRootNoise();
+    }
+
+    // Iterative deepening over the given packed root moves; the result holds the deepest completed iteration.
+    // With a pool, all root moves after the first are searched as parallel fork/join tasks.
+    // The listener, if any, receives the result of every completed iteration.
+    SearchResult iterate(int[] rootMoves, int startDepth, int maxDepth, ForkJoinPool rootSplitPool,
+                         Consumer<SearchResult> listener) {
+        int moveCount = rootMoves.length;
+        orderMoves(rootMoves, moveCount, TranspositionTable.move(transpositionTable.probe(board.getHashKey())), 0);
+        int bestMove = rootMoves[0];
+        int bestValue = 0;
+        int completedDepth = 0;
+        int[] values = new int[moveCount];
+
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            // The previous iteration's best move is searched first
+            int bestIndex = 0;
+            while (rootMoves[bestIndex] != bestMove) {
+                bestIndex++;
+            }
+            System.arraycopy(rootMoves, 0, rootMoves, 1, bestIndex);
+            rootMoves[0] = bestMove;
+
+            int serialMoves = rootSplitPool == null ? moveCount : 1;
+            int alpha = -INFINITY;
+            for (int i = 0; i < serialMoves && !control.isStopped(); i++) {
+                values[i] = searchRootMove(rootMoves[i], depth, alpha);
+                alpha = Math.max(alpha, values[i]);
+            }
+            if (serialMoves < moveCount && !control.isStopped()) {
+                searchRootMovesInParallel(rootMoves, values, depth, alpha, rootSplitPool);
+            }
+            if (control.isStopped()) {
+                break;
+            }
+
+            int iterationMove = Move.NONE;
+            int iterationValue = Integer.MIN_VALUE;
+            for (int i = 0; i < moveCount; i++) {
+                int value = values[i];
+                if (rootNoise > 0) {
+                    // Add some randomness to prevent repetitive play
+                    value += random.nextInt(2 * rootNoise) - rootNoise;
+                }
+                if (value > iterationValue) {
+                    iterationValue = value;
+                    iterationMove = rootMoves[i];
+                }
+            }
+            bestMove = iterationMove;
+            bestValue = iterationValue;
+            completedDepth = depth;
+            if (listener != null) {
+                reportNodes();
+                listener.accept(new SearchResult(Move.fromInt(bestMove), bestValue, depth, control.getNodes(), control.getElapsedMillis()));
+            }
+        }
+
+        reportNodes();
+        return new SearchResult(Move.fromInt(bestMove), bestValue, completedDepth, nodes, 0);
+    }
+
+    // Moves scoring more than twice the root noise below alpha cannot win even with noise, so they may fail low
+    private int searchRootMove(int move, int depth, int alpha) {
+        board.makeMove(move);
+        int value = -negamax(depth - 1, 1, -INFINITY, -(alpha - 2 * rootNoise));
+        board.unmakeMove();
+        return value;
+    }
+
+    private void searchRootMovesInParallel(int[] rootMoves, int[] values, int depth, int alpha, ForkJoinPool pool) {
+        AtomicInteger sharedAlpha = new AtomicInteger(alpha);
+        List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 1; i < rootMoves.length; i++) {
+            tasks.add(new RootMoveTask(rootMoves[i], depth, sharedAlpha));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        for (int i = 1; i < rootMoves.length; i++) {
+            values[i] = tasks.get(i - 1).getRawResult();
+        }
+    }
+
+    // Searches one root move with the pool thread's worker, tightening the shared alpha when done
+    private class RootMoveTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int move;
+        private final int depth;
+        private final AtomicInteger sharedAlpha;
+
+        RootMoveTask(int move, int depth, AtomicInteger sharedAlpha) {
+            this.move = move;
+            this.depth = depth;
+            this.sharedAlpha = sharedAlpha;
+        }
+
+        @Override
+        protected Integer compute() {
+            SearchWorker worker = splitWorkers.computeIfAbsent(Thread.currentThread(),
+                    thread -> new SearchWorker(ai, transpositionTable, control, board.copy(), new Random(random.nextLong())));
+            // One below the shared alpha: the alpha read here may already come from a move later in the list, and
+            // a fail-low bound equal to that exact score would win the index-order tie when the best move is picked
+            int value = worker.searchRootMove(move, depth, sharedAlpha.get() - 1);
+            worker.reportNodes();
+            sharedAlpha.accumulateAndGet(value, Math::max);
+            return value;
+        }
+    }
+
+    private void reportNodes() {
+        control.addNodesAndCheck(unreportedNodes);
+        unreportedNodes = 0;
+    }
+
+    // Scores are relative to the side to move, so bounds stored in the transposition table mean the same thing at every node
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        countNode();
+        if (control.isStopped()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+        // A repeated position is scored as a draw at its second occurrence; it could be repeated again anyway
+        if (board.isRepetition() || board.isDraw()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return quiescence(ply, alpha, beta);
+        }
+
+        long key = board.getHashKey();
+        long entry = transpositionTable.probe(key);
+        int hashMove = TranspositionTable.move(entry);
+        if (entry != 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            switch (TranspositionTable.bound(entry)) {
+                case TranspositionTable.BOUND_EXACT: return score;
+                case TranspositionTable.BOUND_LOWER: alpha = Math.max(alpha, score); break;
+                case TranspositionTable.BOUND_UPPER: beta = Math.min(beta, score); break;
+            }
+            if (alpha >= beta) {
+                return score;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int bestValue = -INFINITY;
+        int bestMove = Move.NONE;
+        int[] moves = moveStack[ply];
+        int moveCount = board.generateMoves(moves);
+        if (moveCount == 0) {
+            // Checkmate or stalemate; nearer mates score higher
+            return board.isKingInCheck(board.getCurrentPlayer()) ? -(MATE_SCORE - ply) : 0;
+        }
+        orderMoves(moves, moveCount, hashMove, ply);
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            board.makeMove(move);
+            int eval = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (control.isStopped()) {
+                return 0; // Partial results must not reach the transposition table
+            }
+            if (eval > bestValue) {
+                bestValue = eval;
+                bestMove = move;
+            }
+            alpha = Math.max(alpha, eval);
+            if (alpha >= beta) {
+                recordCutoff(move, depth, ply);
+                break;
+            }
+        }
+
+        int bound = bestValue <= originalAlpha ? TranspositionTable.BOUND_UPPER
+                  : bestValue >= beta ? TranspositionTable.BOUND_LOWER
+                  : TranspositionTable.BOUND_EXACT;
+        transpositionTable.store(key, bestMove, scoreToTable(bestValue, ply), depth, bound);
+        return bestValue;
+    }
+
+    private static int scoreToTable(int score, int ply) {
+        return score > MATE_BOUND ? score + ply : score < -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        return score > MATE_BOUND ? score - ply : score < -MATE_BOUND ? score + ply : score;
+    }
+
+    // Searches captures only until the position is quiet, so the static evaluation is never taken mid-exchange.
+    // In check there is no standing pat: every evasion is searched, and having none is mate at this ply.
+    private int quiescence(int ply, int alpha, int beta) {
+        countNode();
+        if (control.isStopped()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+        boolean inCheck = board.isKingInCheck(board.getCurrentPlayer());
+        int[] moves = moveStack[ply];
+        int moveCount;
+        int standPat = -INFINITY;
+        if (inCheck) {
+            moveCount = board.generateMoves(moves);
+            if (moveCount == 0) {
+                return -(MATE_SCORE - ply);
+            }
+        } else {
+            standPat = evaluate();
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            moveCount = board.generateCaptures(moves);
+        }
+        int bestValue = standPat;
+
+        orderMoves(moves, moveCount, Move.NONE, ply);
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            if (!inCheck) {
+                int victim = Move.captured(move);
+                if (Move.promotion(move) == Move.NO_PIECE
+                        && standPat + ChessBoard.exchangeValue(ChessPiece.fromIndex(victim).getType()) + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+                if (board.staticExchangeEvaluation(move) < 0) {
+                    continue; // Losing capture
+                }
+            }
+            board.makeMove(move);
+            int eval = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (control.isStopped()) {
+                return 0;
+            }
+            if (eval > bestValue) {
+                bestValue = eval;
+                if (eval >= beta) {
+                    break;
+                }
+                alpha = Math.max(alpha, eval);
+            }
+        }
+        return bestValue;
+    }
+
+    private int evaluate() {
+        int eval = ai.evaluateBoard(board);
+        return board.getCurrentPlayer() == ChessBoard.Player.WHITE ? eval : -eval;
+    }
+
+    private void countNode() {
+        nodes++;
+        if ((++unreportedNodes & CHECK_INTERVAL) == 0 || unreportedNodes >= control.getNodeLimit()) {
+            reportNodes();
+        }
+    }
+
+    // Sorts moves best-first; insertion sort is fast for the short lists a position produces
+    private void orderMoves(int[] moves, int count, int hashMove, int ply) {
+        for (int i = 0; i < count; i++) {
+            orderScores[i] = scoreMove(moves[i], hashMove, ply);
+        }
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            int score = orderScores[i];
+            int j = i - 1;
+            while (j >= 0 && orderScores[j] < score) {
+                orderScores[j + 1] = orderScores[j];
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            orderScores[j + 1] = score;
+            moves[j + 1] = move;
+        }
+    }
+
+    private int scoreMove(int move, int hashMove, int ply) {
+        if (move == hashMove) {
+            return HASH_MOVE_SCORE;
+        }
+        int attacker = Move.piece(move);
+        int promotion = Move.promotion(move);
+        if (Move.isCapture(move) || promotion != Move.NO_PIECE) {
+            int gain = (Move.isCapture(move) ? ORDER_VALUES[Move.captured(move) % 6] : 0)
+                     + (promotion != Move.NO_PIECE ? ORDER_VALUES[promotion] : 0);
+            return CAPTURE_SCORE + gain * 16 - ORDER_VALUES[attacker % 6];
+        }
+        if (ply < MAX_PLY) {
+            if (move == killerMoves[ply][0]) {
+                return FIRST_KILLER_SCORE;
+            }
+            if (move == killerMoves[ply][1]) {
+                return SECOND_KILLER_SCORE;
+            }
+        }
+        return historyScores[attacker][Move.to(move)];
+    }
+
+    // Quiet moves that cause a beta cutoff become killers for their ply and gain history credit
+    private void recordCutoff(int move, int depth, int ply) {
+        if (Move.isCapture(move) || Move.promotion(move) != Move.NO_PIECE) {
+            return;
+        }
+        if (killerMoves[ply][0] != move) {
+            killerMoves[ply][1] = killerMoves[ply][0];
+            killerMoves[ply][0] = move;
+        }
+        int piece = Move.piece(move);
+        int to = Move.to(move);
+        historyScores[piece][to] += depth * depth;
+        if (historyScores[piece][to] > HISTORY_LIMIT) {
+            // Keep history below the killer scores by halving the whole table
+            for (int[] scores : historyScores) {
+                for (int square = 0; square < 64; square++) {
+                    scores[square] /= 2;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Headless match between two engine configurations, for checking that a change keeps playing strength.
+// Every opening is played twice with colors swapped. Games run concurrently on a fixed pool, one game per
+// thread at a time, and each thread reuses its own pair of engines. Reports the result from engine A's
+// point of view with an Elo estimate and its 95% error bar, plus nodes per second and time-per-move
+// percentiles for each engine.
+//
+// java SelfPlayMatch [--games n] [--concurrency n] [--openings file] [--a config] [--b config]
+//   config: comma-separated depth=n, movetime=ms, nodes=n, hash=mb, noise=cp, threads=n, mode=lazy_smp|root_split,
+//   e.g. depth=5,hash=16 or movetime=200,threads=4,mode=root_split
+//   noise defaults to a few centipawns so replayed openings diverge; with noise=0 both engines are deterministic
+//   and each opening yields only two distinct games
+public class SelfPlayMatch {
+    private static final int DEFAULT_GAMES = 100;
+    // Node limit of an engine whose config sets no depth, node or time limit; the default config is just that
+    private static final long DEFAULT_NODES = 20000;
+    private static final String DEFAULT_CONFIG = "nodes=" + DEFAULT_NODES;
+    // Games still running after this many plies are adjudicated as draws
+    private static final int MAX_PLIES = 400;
+    private static final int PROGRESS_INTERVAL = 50;
+    // Root move scores are shaken by up to this many centipawns unless the config sets noise
+    private static final int DEFAULT_ROOT_NOISE = 10;
+    // Balanced positions a few moves into common openings
+    private static final String[] DEFAULT_OPENINGS = {
+        "rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2",
+        "rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+        "rnbqkbnr/pppp1ppp/4p3/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+        "rnbqkbnr/pp1ppppp/2p5/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2",
+        "rnbqkbnr/ppp1pppp/8/3p4/2PP4/8/PP2PPPP/RNBQKBNR b KQkq - 0 2",
+        "rnbqkb1r/pppppppp/5n2/8/2PP4/8/PP2PPPP/RNBQKBNR b KQkq - 0 2",
+        "rnbqkbnr/pppppppp/8/8/2P5/8/PP1PPPPP/RNBQKBNR b KQkq - 0 1",
+        "rnbqkb1r/pppppp1p/5np1/8/2PP4/8/PP2PPPP/RNBQKBNR w KQkq - 0 3",
+        "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3",
+        "rnbqkbnr/ppp2ppp/4p3/3p4/3PP3/8/PPP2PPP/RNBQKBNR w KQkq - 0 3",
+    };
+
+    private final EngineConfig[] configs;
+    private final EngineStats[] stats = {new EngineStats(), new EngineStats()};
+    private final List<String> openings;
+    private final int games;
+    private final int concurrency;
+    // Results from engine A's point of view
+    private final AtomicInteger wins = new AtomicInteger();
+    private final AtomicInteger draws = new AtomicInteger();
+    private final AtomicInteger losses = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+
+    public SelfPlayMatch(EngineConfig a, EngineConfig b, List<String> openings, int games, int concurrency) {
+        this.configs = new EngineConfig[] {a, b};
+        this.openings = openings;
+        this.games = games;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = DEFAULT_GAMES;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        List<String> openings = Arrays.asList(DEFAULT_OPENINGS);
+        EngineConfig a = EngineConfig.parse(DEFAULT_CONFIG);
+        EngineConfig b = EngineConfig.parse(DEFAULT_CONFIG);
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[i + 1]); break;
+                case "--concurrency": concurrency = Math.max(1, Integer.parseInt(args[i + 1])); break;
+                case "--openings": openings = readOpenings(args[i + 1]); break;
+                case "--a": a = EngineConfig.parse(args[i + 1]); break;
+                case "--b": b = EngineConfig.parse(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (games < 1) {
+            throw new IllegalArgumentException("At least one game is needed: " + games);
+        }
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("No openings to play");
+        }
+        if (a.isDeterministic() && b.isDeterministic() && games > 2 * openings.size()) {
+            // Replays of an opening would repeat the same game and the error bar would count them as independent
+            throw new IllegalArgumentException("Both engines are deterministic (noise=0), so " + games + " games over "
+                    + openings.size() + " openings repeat themselves; use at most " + 2 * openings.size()
+                    + " games, more openings, or a nonzero noise");
+        }
+        System.out.println("Engine A: " + a + ", engine B: " + b);
+        new SelfPlayMatch(a, b, openings, games, concurrency).run();
+    }
+
+    private static List<String> readOpenings(String file) throws IOException {
+        List<String> openings = new ArrayList<>();
+        ChessBoard board = new ChessBoard();
+        try (PositionFileReader reader = new PositionFileReader(Paths.get(file))) {
+            while (true) {
+                try {
+                    if (!reader.next(board)) {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipped " + e.getMessage());
+                    continue;
+                }
+                openings.add(board.getFen());
+            }
+        }
+        return openings;
+    }
+
+    public void run() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        ThreadLocal<ChessAI[]> engines = ThreadLocal.withInitial(() -> new ChessAI[] {configs[0].create(), configs[1].create()});
+        List<Future<?>> results = new ArrayList<>();
+        for (int game = 0; game < games; game++) {
+            String opening = openings.get((game / 2) % openings.size());
+            // Engine A plays white in even games and black in odd ones
+            int whiteEngine = game % 2;
+            results.add(pool.submit(() -> playGame(engines.get(), opening, whiteEngine)));
+        }
+        try {
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        report();
+    }
+
+    private void playGame(ChessAI[] engines, String opening, int whiteEngine) {
+        ChessBoard board = new ChessBoard();
+        board.setFen(opening);
+        CancellationToken token = new CancellationToken();
+        engines[0].newGame();
+        engines[1].newGame();
+
+        ChessBoard.GameState state = board.getGameState();
+        for (int ply = 0; ply < MAX_PLIES && state == ChessBoard.GameState.IN_PROGRESS; ply++) {
+            int engine = board.getCurrentPlayer() == ChessBoard.Player.WHITE ? whiteEngine : 1 - whiteEngine;
+            long start = System.nanoTime();
+            SearchResult result = engines[engine].search(board, configs[engine].limits, token);
+            stats[engine].record(System.nanoTime() - start, result.getNodes());
+            board.makeMove(result.getBestMove());
+            state = board.getGameState();
+        }
+
+        if (state == ChessBoard.GameState.CHECKMATE) {
+            // The side to move is mated
+            int loser = board.getCurrentPlayer() == ChessBoard.Player.WHITE ? whiteEngine : 1 - whiteEngine;
+            (loser == 0 ? losses : wins).incrementAndGet();
+        } else {
+            draws.incrementAndGet();
+        }
+        int played = finished.incrementAndGet();
+        if (played % PROGRESS_INTERVAL == 0) {
+            System.out.println(played + " games: +" + wins.get() + " =" + draws.get() + " -" + losses.get());
+        }
+    }
+
+    private void report() {
+        int w = wins.get();
+        int d = draws.get();
+        int l = losses.get();
+        int n = w + d + l;
+        double score = (w + 0.5 * d) / n;
+        // Standard error of the mean game score, turned into Elo at the interval ends
+        double variance = (w * Math.pow(1 - score, 2) + d * Math.pow(0.5 - score, 2) + l * Math.pow(score, 2)) / n;
+        double margin = 1.96 * Math.sqrt(variance / n);
+        double elo = elo(score);
+        double errorBar = (elo(score + margin) - elo(score - margin)) / 2;
+
+        System.out.println(String.format(Locale.ROOT, "%d games: A +%d =%d -%d, score %.1f%%", n, w, d, l, 100 * score));
+        System.out.println(String.format(Locale.ROOT, "Elo difference A-B: %+.1f +/- %.1f (95%%)", elo, errorBar));
+        for (int engine = 0; engine < 2; engine++) {
+            System.out.println((engine == 0 ? "Engine A: " : "Engine B: ") + stats[engine].summary());
+        }
+    }
+
+    private static double elo(double score) {
+        double clamped = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+
+    // Search limits and table sizes of one side of the match
+    static final class EngineConfig {
+        private final SearchLimits limits;
+        private final int hashSizeMb;
+        private final int rootNoise;
+        private final int threads;
+        private final ChessAI.ParallelMode parallelMode;
+        private final String description;
+
+        private EngineConfig(SearchLimits limits, int hashSizeMb, int rootNoise, int threads,
+                             ChessAI.ParallelMode parallelMode, String description) {
+            this.limits = limits;
+            this.hashSizeMb = hashSizeMb;
+            this.rootNoise = rootNoise;
+            this.threads = threads;
+            this.parallelMode = parallelMode;
+            this.description = description;
+        }
+
+        static EngineConfig parse(String spec) {
+            int depth = 0;
+            long moveTime = 0;
+            long nodes = 0;
+            int hashSizeMb = 16;
+            int rootNoise = DEFAULT_ROOT_NOISE;
+            int threads = 1;
+            ChessAI.ParallelMode parallelMode = ChessAI.ParallelMode.LAZY_SMP;
+            for (String setting : spec.split(",")) {
+                String[] parts = setting.split("=");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Expected name=value: " + setting);
+                }
+                switch (parts[0].trim()) {
+                    case "depth": depth = Integer.parseInt(parts[1].trim()); break;
+                    case "movetime": moveTime = Long.parseLong(parts[1].trim()); break;
+                    case "nodes": nodes = Long.parseLong(parts[1].trim()); break;
+                    case "hash": hashSizeMb = Integer.parseInt(parts[1].trim()); break;
+                    case "noise": rootNoise = Integer.parseInt(parts[1].trim()); break;
+                    case "threads": threads = Math.max(1, Integer.parseInt(parts[1].trim())); break;
+                    case "mode": parallelMode = ChessAI.ParallelMode.valueOf(parts[1].trim().toUpperCase(Locale.ROOT)); break;
+                    default: throw new IllegalArgumentException("Unknown engine setting " + parts[0]);
+                }
+            }
+            String description = spec;
+            if (depth == 0 && moveTime == 0 && nodes == 0) {
+                // Without any limit a search never ends
+                nodes = DEFAULT_NODES;
+                description += ",nodes=" + DEFAULT_NODES;
+            }
+            return new EngineConfig(new SearchLimits(depth, moveTime, nodes), hashSizeMb, rootNoise, threads, parallelMode, description);
+        }
+
+        // Without noise a single thread plays the same move in the same position, or nearly so under a time limit
+        boolean isDeterministic() {
+            return rootNoise == 0 && threads == 1;
+        }
+
+        ChessAI create() {
+            ChessAI ai = new ChessAI(hashSizeMb);
+            ai.setRootNoise(rootNoise);
+            ai.setParallelMode(parallelMode);
+            ai.setThreads(threads);
+            return ai;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    // Search time and nodes of every move one engine played
+    private static final class EngineStats {
+        private long[] moveTimes = new long[1024];
+        private int moves;
+        private long nodes;
+        private long totalTime;
+
+        synchronized void record(long nanos, long searchNodes) {
+            if (moves == moveTimes.length) {
+                moveTimes = Arrays.copyOf(moveTimes, moves * 2);
+            }
+            moveTimes[moves++] = nanos;
+            nodes += searchNodes;
+            totalTime += nanos;
+        }
+
+        synchronized String summary() {
+            long[] sorted = Arrays.copyOf(moveTimes, moves);
+            Arrays.sort(sorted);
+            return String.format(Locale.ROOT, "%d moves, %.0f nodes/s, ms per move p50 %.1f p90 %.1f p99 %.1f max %.1f",
+                    moves, nodes / Math.max(totalTime / 1e9, 1e-9),
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 100));
+        }
+
+        private static double percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
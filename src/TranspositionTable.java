@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+public class TranspositionTable {
+    public static final int BOUND_LOWER = 1;
+    public static final int BOUND_UPPER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final int ENTRIES_PER_BUCKET = 2;
+
+    // Each entry is two longs: (key ^ data) and data. A reader only trusts an entry whose XOR
+    // reproduces the probed key, so entries torn by concurrent writers are seen as misses and
+    // threads can share the table without locks.
+    //
+    // data layout: move (bits 0-31) | score (32-47) | depth (48-55) | bound (56-57) | generation (58-63)
+    private final long[] table;
+    private final int bucketMask;
+    private int generation;
+
+    public TranspositionTable(int sizeMb) {
+        long entries = Math.max(ENTRIES_PER_BUCKET, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+        long buckets = Long.highestOneBit(Math.min(entries / ENTRIES_PER_BUCKET, Integer.MAX_VALUE / (2 * ENTRIES_PER_BUCKET)));
+        table = new long[(int) (buckets * ENTRIES_PER_BUCKET * 2)];
+        bucketMask = (int) buckets - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    // Called once per search so entries from earlier moves are replaced first
+    public void newSearch() {
+        generation = (generation + 1) & 63;
+    }
+
+    // Returns the packed data for the key, or 0 when the position is not stored
+    public long probe(long key) {
+        int base = bucketIndex(key);
+        for (int i = base; i < base + ENTRIES_PER_BUCKET * 2; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucketIndex(key);
+        int target = base;
+        int lowestPriority = Integer.MAX_VALUE;
+        for (int i = base; i < base + ENTRIES_PER_BUCKET * 2; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key) {
+                // Same position: keep the old best move if this search did not produce one
+                if (move == 0) {
+                    move = move(data);
+                }
+                target = i;
+                break;
+            }
+            // Prefer replacing empty, stale or shallow entries
+            int age = (generation - generation(data)) & 63;
+            int priority = data == 0 ? Integer.MIN_VALUE : depth(data) - 8 * age;
+            if (priority < lowestPriority) {
+                lowestPriority = priority;
+                target = i;
+            }
+        }
+
+        long data = (move & 0xFFFFFFFFL)
+                  | ((long) (score & 0xFFFF) << 32)
+                  | ((long) (depth & 0xFF) << 48)
+                  | ((long) bound << 56)
+                  | ((long) generation << 58);
+        table[target] = key ^ data;
+        table[target + 1] = data;
+    }
+
+    private int bucketIndex(long key) {
+        return (int) (key & bucketMask) * ENTRIES_PER_BUCKET * 2;
+    }
+
+    public static int move(long data) {
+        return (int) data;
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 32);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 48) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 56) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 58) & 63;
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+// Universal Chess Interface front end: reads commands from standard input and answers on standard output,
+// so the engine runs headless under chess GUIs, match runners and analysis tools. Searches run on their
+// own thread so stop and isready are answered while one is in progress.
+public class UciEngine {
+    private static final String NAME = "AI-ChessEngine";
+    private static final int MAX_HASH_SIZE_MB = 4096;
+    private static final int MAX_THREADS = 256;
+    // Without movestogo the remaining time is budgeted as if this many moves were left
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    // Kept in reserve for the move to reach the GUI
+    private static final long MOVE_OVERHEAD_MS = 50;
+
+    private final PrintStream out;
+    private ChessBoard board = new ChessBoard();
+    private ChessAI ai = new ChessAI();
+    private int hashSizeMb = ChessAI.DEFAULT_HASH_SIZE_MB;
+    private OpeningBook book;
+    private Thread searchThread;
+    private CancellationToken searchToken;
+    // Released by stop; "go infinite" may not answer before it even when the search ends by itself
+    private CountDownLatch stopSignal;
+
+    public UciEngine(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new UciEngine(System.out).run(in);
+    }
+
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.trim();
+            if (command.equals("quit")) {
+                break;
+            }
+            try {
+                handle(command);
+            } catch (IllegalArgumentException e) {
+                send("info string " + e.getMessage());
+            }
+        }
+        stopSearch();
+        closeBook();
+    }
+
+    private void handle(String command) {
+        String[] tokens = command.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author PanagiwthsPapatheodoropoulos");
+                send("option name Hash type spin default " + ChessAI.DEFAULT_HASH_SIZE_MB + " min 1 max " + MAX_HASH_SIZE_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name ParallelMode type combo default " + ChessAI.ParallelMode.LAZY_SMP
+                        + " var " + ChessAI.ParallelMode.LAZY_SMP + " var " + ChessAI.ParallelMode.ROOT_SPLIT);
+                send("option name BookFile type string default <empty>");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                stopSearch();
+                ai.newGame();
+                board.resetBoard();
+                break;
+            case "setoption":
+                stopSearch();
+                setOption(tokens);
+                break;
+            case "position":
+                stopSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            default:
+                if (!command.isEmpty()) {
+                    send("info string Unknown command: " + command);
+                }
+                break;
+        }
+    }
+
+    // setoption name <name> value <value>
+    private void setOption(String[] tokens) {
+        StringBuilder name = new StringBuilder();
+        String value = null;
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("value") && i + 1 < tokens.length) {
+                // File names may contain spaces
+                value = String.join(" ", Arrays.copyOfRange(tokens, i + 1, tokens.length));
+                break;
+            }
+            if (!tokens[i].equals("name")) {
+                name.append(name.length() == 0 ? "" : " ").append(tokens[i]);
+            }
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for option " + name);
+        }
+        if (name.toString().equalsIgnoreCase("Hash")) {
+            hashSizeMb = Math.max(1, Math.min(MAX_HASH_SIZE_MB, parseNumber(value)));
+            int threads = ai.getThreads();
+            ChessAI.ParallelMode mode = ai.getParallelMode();
+            // Shuts down the old instance's thread pools
+            ai.setThreads(1);
+            ai = new ChessAI(hashSizeMb);
+            ai.setParallelMode(mode);
+            ai.setThreads(threads);
+            ai.setOpeningBook(book);
+        } else if (name.toString().equalsIgnoreCase("Threads")) {
+            ai.setThreads(Math.max(1, Math.min(MAX_THREADS, parseNumber(value))));
+        } else if (name.toString().equalsIgnoreCase("ParallelMode")) {
+            ai.setParallelMode(ChessAI.ParallelMode.valueOf(value.toUpperCase(Locale.ROOT)));
+        } else if (name.toString().equalsIgnoreCase("BookFile")) {
+            closeBook();
+            if (!value.isEmpty() && !value.equals("<empty>")) {
+                try {
+                    book = new OpeningBook(Paths.get(value));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot open book " + value + ": " + e.getMessage());
+                }
+            }
+            ai.setOpeningBook(book);
+        } else {
+            throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+
+    private void closeBook() {
+        if (book == null) {
+            return;
+        }
+        ai.setOpeningBook(null);
+        try {
+            book.close();
+        } catch (IOException e) {
+            send("info string " + e.getMessage());
+        }
+        book = null;
+    }
+
+    // position [startpos | fen <fen>] [moves <move>...]
+    // Built on a new board that replaces the current one only when the FEN and every move are valid
+    private void setPosition(String[] tokens) {
+        ChessBoard board = new ChessBoard();
+        int index = 1;
+        if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (index = 2; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                fen.append(tokens[index]).append(' ');
+            }
+            board.setFen(fen.toString().trim());
+        } else {
+            index = 2;
+        }
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                Move move = Move.fromString(tokens[index]);
+                if (!board.isValidMove(move)) {
+                    throw new IllegalArgumentException("Illegal move " + tokens[index]);
+                }
+                board.makeMove(move);
+            }
+        }
+        this.board = board;
+    }
+
+    // go [depth <n>] [nodes <n>] [movetime <ms>] [wtime <ms>] [btime <ms>] [winc <ms>] [binc <ms>] [movestogo <n>] [infinite]
+    private void go(String[] tokens) {
+        int depth = 0;
+        long nodes = 0;
+        long moveTime = 0;
+        long[] time = new long[2];
+        long[] increment = new long[2];
+        int movesToGo = DEFAULT_MOVES_TO_GO;
+        boolean infinite = false;
+        for (int i = 1; i < tokens.length; i++) {
+            String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+            switch (tokens[i]) {
+                case "depth": depth = parseNumber(value); i++; break;
+                case "nodes": nodes = Long.parseLong(value); i++; break;
+                case "movetime": moveTime = Long.parseLong(value); i++; break;
+                case "wtime": time[0] = Long.parseLong(value); i++; break;
+                case "btime": time[1] = Long.parseLong(value); i++; break;
+                case "winc": increment[0] = Long.parseLong(value); i++; break;
+                case "binc": increment[1] = Long.parseLong(value); i++; break;
+                case "movestogo": movesToGo = Math.max(1, parseNumber(value)); i++; break;
+                case "infinite": infinite = true; break;
+                default: break;
+            }
+        }
+
+        int us = board.getCurrentPlayer().ordinal();
+        if (moveTime == 0 && time[us] > 0) {
+            long budget = time[us] / movesToGo + increment[us] * 3 / 4;
+            moveTime = Math.max(1, Math.min(budget, time[us] - MOVE_OVERHEAD_MS));
+        }
+        SearchLimits limits = infinite ? new SearchLimits(0, 0, 0) : new SearchLimits(depth, moveTime, nodes);
+
+        CancellationToken token = new CancellationToken();
+        CountDownLatch stop = new CountDownLatch(1);
+        boolean waitForStop = infinite;
+        ChessBoard position = board.copy();
+        ChessAI engine = ai;
+        searchToken = token;
+        stopSignal = stop;
+        searchThread = new Thread(() -> {
+            Move best = null;
+            try {
+                best = engine.search(position, limits, token, this::sendInfo).getBestMove();
+            } catch (RuntimeException e) {
+                // The GUI waits for a bestmove whatever happens
+                send("info string Search failed: " + e);
+            }
+            if (waitForStop) {
+                try {
+                    stop.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            send("bestmove " + (best == null ? "0000" : best.toString()));
+        }, "uci-search");
+        searchThread.setDaemon(true);
+        searchThread.start();
+    }
+
+    // Cancels a running search and waits for its bestmove to be sent
+    private void stopSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        searchToken.cancel();
+        stopSignal.countDown();
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    private void sendInfo(SearchResult result) {
+        long nps = result.getTimeMillis() > 0 ? result.getNodes() * 1000 / result.getTimeMillis() : 0;
+        send("info depth " + result.getDepth() + " score " + formatScore(result)
+                + " nodes " + result.getNodes() + " nps " + nps + " time " + result.getTimeMillis()
+                + " pv " + result.getBestMove());
+    }
+
+    // Mates are reported in moves, negative when the side to move is getting mated
+    private static String formatScore(SearchResult result) {
+        int mateMoves = result.getMateMoves();
+        return mateMoves != 0 ? "mate " + mateMoves : "cp " + result.getScore();
+    }
+
+    private static int parseNumber(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    private synchronized void send(String message) {
+        out.println(message);
+        out.flush();
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.Random;
+
+public final class Zobrist {
+    // Fixed seed so keys, and anything persisted by them, are stable between runs
+    private static final long SEED = 0x3C6EF372FE94F82BL;
+
+    public static final long[][] PIECE_SQUARE = new long[12][64];
+    public static final long BLACK_TO_MOVE;
+    // Indexed by the board's 4-bit castling rights, and by the file of the en passant square
+    public static final long[] CASTLING = new long[16];
+    public static final long[] EN_PASSANT = new long[8];
+
+    static {
+        Random random = new Random(SEED);
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        // No rights hashes to 0 so the start position key does not depend on how it was set up
+        for (int rights = 1; rights < 16; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}